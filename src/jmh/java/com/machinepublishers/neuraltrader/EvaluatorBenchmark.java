@@ -0,0 +1,52 @@
+package com.machinepublishers.neuraltrader;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EvaluatorBenchmark {
+
+  @Param({"true", "false"})
+  public boolean comparable;
+  @Param({"0", "2"})
+  public double racing;
+  private Evaluator evaluator;
+  private ProfitCache cache;
+  private NeuralNet cur;
+  private NeuralNet other;
+
+  @Setup
+  public void setup() {
+    Prices prices = Fixtures.prices();
+    NeuralNet[] baselines = new NeuralNet[3];
+    for (int i = 0; i < baselines.length; i++) {
+      baselines[i] = Fixtures.net(i);
+    }
+    evaluator = new Evaluator(prices, baselines, racing);
+    cache = evaluator.newCache();
+    cur = Fixtures.net(3);
+    other = Fixtures.net(4);
+  }
+
+  @Benchmark
+  public NeuralNet evalScaled() {
+    NeuralNet next = comparable ? cur.mergeAndMutate(other, 25, 125_000) : other.clone(3, true);
+    cur = evaluator.evalScaled(cache, cur, next);
+    return cur;
+  }
+}
\ No newline at end of file
@@ -0,0 +1,71 @@
+package com.machinepublishers.neuraltrader;
+
+import com.machinepublishers.neuraltrader.Prices.Marker;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NeuralNetBenchmark {
+
+  @Param({"scalar", "vector", "int8", "sparse"})
+  public String inference;
+  private Inference engine;
+  private Prices prices;
+  private NeuralNet net;
+  private Inputs inputs;
+  private Marker[] markers;
+  private int marker;
+  private final Decision[] decisions = new Decision[2 * Evaluator.WINDOW];
+  private int t;
+
+  @Setup
+  public void setup() {
+    prices = Fixtures.prices();
+    engine = Inference.create(inference);
+    net = Fixtures.net(0);
+    markers = new Marker[1024];
+    for (int i = 0; i < markers.length; i++) {
+      markers[i] = prices.rand(true);
+    }
+    inputs = Evaluator.newInputs().reset(prices.getData(markers[0]), markers[0].offset());
+  }
+
+  @Benchmark
+  public Decision decide() {
+    t = (t + 1) % inputs.positions();
+    return engine.decide(net, inputs, t);
+  }
+
+  @Benchmark
+  public Decision[] decideWindow() {
+    engine.decide(net, inputs, 0, decisions.length, decisions);
+    return decisions;
+  }
+
+  @Benchmark
+  public double[] prepareInputs() {
+    Marker m = markers[marker++ & (markers.length - 1)];
+    return inputs.reset(prices.getData(m), m.offset()).shifted(0, inputs.positions());
+  }
+
+  @Benchmark
+  public int profit() {
+    Marker m = markers[marker++ & (markers.length - 1)];
+    return Evaluator.profit(net, inputs.reset(prices.getData(m), m.offset()));
+  }
+}
\ No newline at end of file
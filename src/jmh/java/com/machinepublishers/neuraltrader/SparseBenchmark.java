@@ -0,0 +1,57 @@
+package com.machinepublishers.neuraltrader;
+
+import com.machinepublishers.neuraltrader.Prices.Marker;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SparseBenchmark {
+
+  @Param({"1.0", "0.7", "0.5", "0.3", "0.2", "0.1", "0.05"})
+  public double density;
+  @Param({"dense", "sparse", "auto"})
+  public String path;
+  private Inference engine;
+  private Prices prices;
+  private NeuralNet net;
+  private Inputs inputs;
+  private Marker[] markers;
+  private int marker;
+  private final Decision[] decisions = new Decision[2 * Evaluator.WINDOW];
+
+  @Setup
+  public void setup() {
+    prices = Fixtures.prices();
+    engine = "dense".equals(path) ? new SparseInference(0d)
+        : "sparse".equals(path) ? new SparseInference(2d) : new SparseInference();
+    net = Fixtures.net(0, density);
+    markers = new Marker[1024];
+    for (int i = 0; i < markers.length; i++) {
+      markers[i] = prices.rand(true);
+    }
+    inputs = Evaluator.newInputs();
+  }
+
+  @Benchmark
+  public Decision[] decideWindow() {
+    Marker m = markers[marker++ & (markers.length - 1)];
+    engine.decide(net, inputs.reset(prices.getData(m), m.offset()), 0, decisions.length,
+        decisions);
+    return decisions;
+  }
+}
\ No newline at end of file
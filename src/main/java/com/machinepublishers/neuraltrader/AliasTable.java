@@ -0,0 +1,65 @@
+package com.machinepublishers.neuraltrader;
+
+import java.util.random.RandomGenerator;
+
+public class AliasTable {
+
+  private final double[] prob;
+  private final int[] alias;
+
+  public AliasTable(double[] weights) {
+    int n = weights.length;
+    double total = 0;
+    for (double weight : weights) {
+      if (!(weight >= 0) || Double.isInfinite(weight)) {
+        throw new IllegalArgumentException("Invalid weight " + weight);
+      }
+      total += weight;
+    }
+    if (!(total > 0)) {
+      throw new IllegalArgumentException("No positive weights");
+    }
+    prob = new double[n];
+    alias = new int[n];
+    double[] scaled = new double[n];
+    int[] small = new int[n];
+    int[] large = new int[n];
+    int smallLen = 0;
+    int largeLen = 0;
+    for (int i = 0; i < n; i++) {
+      scaled[i] = weights[i] * n / total;
+      if (scaled[i] < 1) {
+        small[smallLen++] = i;
+      } else {
+        large[largeLen++] = i;
+      }
+    }
+    while (smallLen > 0 && largeLen > 0) {
+      int less = small[--smallLen];
+      int more = large[--largeLen];
+      prob[less] = scaled[less];
+      alias[less] = more;
+      scaled[more] = (scaled[more] + scaled[less]) - 1;
+      if (scaled[more] < 1) {
+        small[smallLen++] = more;
+      } else {
+        large[largeLen++] = more;
+      }
+    }
+    while (largeLen > 0) {
+      prob[large[--largeLen]] = 1;
+    }
+    while (smallLen > 0) {
+      prob[small[--smallLen]] = 1;
+    }
+  }
+
+  public int size() {
+    return prob.length;
+  }
+
+  public int sample(RandomGenerator rand) {
+    int i = rand.nextInt(prob.length);
+    return rand.nextDouble() < prob[i] ? i : alias[i];
+  }
+}
\ No newline at end of file
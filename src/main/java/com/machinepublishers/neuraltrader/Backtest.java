@@ -0,0 +1,160 @@
+package com.machinepublishers.neuraltrader;
+
+import com.machinepublishers.neuraltrader.Prices.Marker;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+
+public class Backtest {
+
+  private static final int WORKERS = Integer.parseInt(System.getProperty("workers",
+      Integer.toString(Runtime.getRuntime().availableProcessors())));
+  private static final int STRIDE = Integer.parseInt(System.getProperty("stride", "1"));
+  private static final String OUT = System.getProperty("out", "backtest.csv");
+  private static final int LEAF = 256;
+
+  public static void main(String[] args) throws IOException {
+    int[] ids = args.length > 0 ? Stream.of(args).mapToInt(Integer::parseInt).toArray()
+        : Stream.of(Objects.requireNonNull(new File("./data").listFiles()))
+            .map(File::getName).filter(name -> name.matches("n\\d+"))
+            .mapToInt(name -> Integer.parseInt(name.substring(1))).sorted().toArray();
+    NeuralNet[] nets = Arrays.stream(ids).mapToObj(id -> NeuralNet.create(id, id))
+        .toArray(NeuralNet[]::new);
+    Prices prices = new Prices(Evaluator.PRICE_HISTORY + (2 * Evaluator.WINDOW));
+    int datasets = prices.datasets(false);
+    long start = System.currentTimeMillis();
+    Aggregate[][] results = new Aggregate[datasets][];
+    ForkJoinPool pool = new ForkJoinPool(WORKERS);
+    try {
+      Span[] spans = new Span[datasets];
+      for (int d = 0; d < datasets; d++) {
+        spans[d] = new Span(prices, nets, d, 0, prices.offsets(false, d));
+        pool.execute(spans[d]);
+      }
+      for (int d = 0; d < datasets; d++) {
+        results[d] = spans[d].join();
+      }
+    } finally {
+      pool.shutdown();
+    }
+    long offsets = 0;
+    try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(new File(OUT).toPath()))) {
+      out.println("net,dataset,offsets,trades,total,mean,hit_rate,max_drawdown");
+      Aggregate[] all = Aggregate.empty(nets.length + 1);
+      for (int d = 0; d < datasets; d++) {
+        offsets += results[d][0].count;
+        for (int n = 0; n <= nets.length; n++) {
+          write(out, n < nets.length ? "n" + ids[n] : "all", prices.name(false, d),
+              results[d][n]);
+          all[n] = all[n].then(results[d][n]);
+        }
+      }
+      for (int n = 0; n <= nets.length; n++) {
+        write(out, n < nets.length ? "n" + ids[n] : "all", "all", all[n]);
+      }
+    }
+    Log.info("Backtested %d nets over %d offsets in %d ms, wrote %s.", nets.length, offsets,
+        System.currentTimeMillis() - start, OUT);
+  }
+
+  private static void write(PrintWriter out, String net, String dataset, Aggregate aggregate) {
+    out.printf("%s,%s,%d,%d,%.2f,%.4f,%.4f,%.2f\n", net, dataset, aggregate.count,
+        aggregate.trades, aggregate.total / 100d,
+        aggregate.count == 0 ? 0d : aggregate.total / 100d / aggregate.count,
+        aggregate.trades == 0 ? 0d : (double) aggregate.hits / aggregate.trades,
+        aggregate.drawdown / 100d);
+  }
+
+  private static class Span extends RecursiveTask<Aggregate[]> {
+
+    private static final long serialVersionUID = 1L;
+    private final Prices prices;
+    private final NeuralNet[] nets;
+    private final int dataset;
+    private final int from;
+    private final int to;
+
+    private Span(Prices prices, NeuralNet[] nets, int dataset, int from, int to) {
+      this.prices = prices;
+      this.nets = nets;
+      this.dataset = dataset;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected Aggregate[] compute() {
+      if (to - from > LEAF * STRIDE) {
+        int mid = from + (to - from) / 2 / STRIDE * STRIDE;
+        Span left = new Span(prices, nets, dataset, from, mid);
+        Span right = new Span(prices, nets, dataset, mid, to);
+        right.fork();
+        Aggregate[] first = left.compute();
+        Aggregate[] second = right.join();
+        for (int n = 0; n < first.length; n++) {
+          first[n] = first[n].then(second[n]);
+        }
+        return first;
+      }
+      Aggregate[] aggregates = Aggregate.empty(nets.length + 1);
+      IntBuffer data = prices.getData(new Marker(false, dataset, from));
+      Inputs inputs = Evaluator.newInputs();
+      for (int offset = from; offset < to; offset += STRIDE) {
+        inputs.reset(data, offset);
+        int sum = 0;
+        for (int n = 0; n < nets.length; n++) {
+          int profit = Evaluator.profit(nets[n], inputs, false);
+          aggregates[n].add(profit);
+          sum += profit;
+        }
+        aggregates[nets.length].add(sum);
+      }
+      return aggregates;
+    }
+  }
+
+  static class Aggregate {
+
+    long count;
+    long trades;
+    long hits;
+    long total;
+    long peak;
+    long trough;
+    long drawdown;
+
+    static Aggregate[] empty(int size) {
+      Aggregate[] aggregates = new Aggregate[size];
+      Arrays.setAll(aggregates, i -> new Aggregate());
+      return aggregates;
+    }
+
+    void add(int profit) {
+      ++count;
+      trades += profit == 0 ? 0 : 1;
+      hits += profit > 0 ? 1 : 0;
+      total += profit;
+      peak = Math.max(peak, total);
+      trough = Math.min(trough, total);
+      drawdown = Math.max(drawdown, peak - total);
+    }
+
+    Aggregate then(Aggregate next) {
+      drawdown = Math.max(Math.max(drawdown, next.drawdown), peak - (total + next.trough));
+      peak = Math.max(peak, total + next.peak);
+      trough = Math.min(trough, total + next.trough);
+      count += next.count;
+      trades += next.trades;
+      hits += next.hits;
+      total += next.total;
+      return this;
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,143 @@
+package com.machinepublishers.neuraltrader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+public class Checkpoints {
+
+  private static final long RETRY = 1_000;
+  private static final Map<File, ByteBuffer> pending = new LinkedHashMap<>();
+  private static Map<File, ByteBuffer> inFlight = Map.of();
+  private static long retryAt;
+
+  static {
+    Thread writer = new Thread(Checkpoints::run, "checkpoints");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  public static void save(File file, ByteBuffer bytes) {
+    saveAll(Map.of(file, bytes));
+  }
+
+  public static void saveAll(Map<File, ByteBuffer> files) {
+    synchronized (pending) {
+      for (Map.Entry<File, ByteBuffer> entry : files.entrySet()) {
+        pending.put(entry.getKey().getAbsoluteFile(), entry.getValue().asReadOnlyBuffer());
+      }
+      pending.notifyAll();
+    }
+  }
+
+  public static ByteBuffer pending(File file) {
+    synchronized (pending) {
+      ByteBuffer bytes = pending.get(file.getAbsoluteFile());
+      bytes = bytes == null ? inFlight.get(file.getAbsoluteFile()) : bytes;
+      return bytes == null ? null : bytes.duplicate();
+    }
+  }
+
+  public static boolean flush(long timeoutMillis) {
+    long deadline = System.currentTimeMillis() + timeoutMillis;
+    synchronized (pending) {
+      retryAt = 0;
+      pending.notifyAll();
+      while (!pending.isEmpty() || !inFlight.isEmpty()) {
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+          return false;
+        }
+        try {
+          pending.wait(remaining);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static void run() {
+    while (true) {
+      Map<File, ByteBuffer> batch;
+      synchronized (pending) {
+        while (pending.isEmpty() || System.currentTimeMillis() < retryAt) {
+          try {
+            pending.wait(pending.isEmpty() ? 0
+                : Math.max(1, retryAt - System.currentTimeMillis()));
+          } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+          }
+        }
+        batch = new LinkedHashMap<>(pending);
+        inFlight = batch;
+        pending.clear();
+      }
+      Map<File, ByteBuffer> failed = write(batch);
+      synchronized (pending) {
+        for (Map.Entry<File, ByteBuffer> entry : failed.entrySet()) {
+          pending.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+        inFlight = Map.of();
+        retryAt = failed.isEmpty() ? 0 : System.currentTimeMillis() + RETRY;
+        pending.notifyAll();
+      }
+    }
+  }
+
+  private static Map<File, ByteBuffer> write(Map<File, ByteBuffer> batch) {
+    Map<File, ByteBuffer> failed = new LinkedHashMap<>();
+    Set<Path> dirs = new LinkedHashSet<>();
+    for (Map.Entry<File, ByteBuffer> entry : batch.entrySet()) {
+      try {
+        dirs.add(write(entry.getKey().toPath(), entry.getValue()));
+      } catch (IOException | RuntimeException e) {
+        Log.info("Checkpoint of %s failed, will retry: %s", entry.getKey(), e);
+        failed.put(entry.getKey(), entry.getValue());
+      }
+    }
+    for (Path dir : dirs) {
+      try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+        channel.force(true);
+      } catch (IOException e) {
+        // Not every platform can sync a directory; the renames are still atomic.
+      }
+    }
+    return failed;
+  }
+
+  private static Path write(Path target, ByteBuffer contents) throws IOException {
+    Path dir = target.getParent();
+    Files.createDirectories(dir);
+    long start = System.nanoTime();
+    Path tmp = dir.resolve(
+        "." + target.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        ByteBuffer bytes = contents.duplicate();
+        while (bytes.hasRemaining()) {
+          channel.write(bytes);
+        }
+        channel.force(false);
+      }
+      Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+    Metrics.checkpoint.record(System.nanoTime() - start);
+    return dir;
+  }
+}
\ No newline at end of file
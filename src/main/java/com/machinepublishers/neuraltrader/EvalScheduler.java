@@ -0,0 +1,160 @@
+package com.machinepublishers.neuraltrader;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.IntConsumer;
+import java.util.random.RandomGenerator;
+
+public class EvalScheduler {
+
+  private final IntConsumer eval;
+  private final RandomGenerator[] streams;
+  private final Worker[] workers;
+  private final Deque<Integer> ready = new ArrayDeque<>();
+  private int running;
+  private boolean paused;
+  private boolean stopped;
+  private long reportedAt = System.nanoTime();
+
+  public EvalScheduler(int workers, String[] names, IntConsumer eval) {
+    this.eval = eval;
+    this.streams = new RandomGenerator[names.length];
+    for (int n = 0; n < names.length; n++) {
+      streams[n] = Rng.stream(names[n]);
+      ready.add(n);
+    }
+    this.workers = new Worker[workers];
+    for (int w = 0; w < workers; w++) {
+      this.workers[w] = new Worker("eval-" + w);
+    }
+  }
+
+  public void start() {
+    for (Worker worker : workers) {
+      worker.start();
+    }
+  }
+
+  private void run(Worker worker) {
+    while (true) {
+      int index;
+      synchronized (ready) {
+        while ((paused || ready.isEmpty()) && !stopped) {
+          try {
+            ready.wait();
+          } catch (InterruptedException e) {
+            return;
+          }
+        }
+        if (stopped) {
+          return;
+        }
+        index = ready.poll();
+        ++running;
+      }
+      long start = System.nanoTime();
+      Rng.bind(streams[index]);
+      try {
+        eval.accept(index);
+      } catch (RuntimeException | Error e) {
+        ++worker.errors;
+        e.printStackTrace();
+      } finally {
+        worker.busy += System.nanoTime() - start;
+        ++worker.evals;
+        synchronized (ready) {
+          ready.add(index);
+          --running;
+          ready.notifyAll();
+        }
+      }
+    }
+  }
+
+  public void pause() {
+    synchronized (ready) {
+      paused = true;
+    }
+  }
+
+  public boolean awaitPaused(long timeoutMillis) {
+    long deadline = System.currentTimeMillis() + timeoutMillis;
+    synchronized (ready) {
+      while (running > 0) {
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+          return false;
+        }
+        try {
+          ready.wait(remaining);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  public void resume() {
+    synchronized (ready) {
+      paused = false;
+      ready.notifyAll();
+    }
+  }
+
+  public boolean shutdown(long timeoutMillis) {
+    pause();
+    boolean idle = awaitPaused(timeoutMillis);
+    synchronized (ready) {
+      stopped = true;
+      ready.notifyAll();
+    }
+    return idle;
+  }
+
+  public long errors() {
+    long errors = 0;
+    for (Worker worker : workers) {
+      errors += worker.errors;
+    }
+    return errors;
+  }
+
+  public void report() {
+    long now = System.nanoTime();
+    long elapsed = Math.max(1, now - reportedAt);
+    reportedAt = now;
+    StringBuilder builder = new StringBuilder();
+    for (Worker worker : workers) {
+      long busy = worker.busy;
+      long evals = worker.evals;
+      builder.append(String.format("%s %.1f%% %d %d, ", worker.getName(),
+          100d * (busy - worker.reportedBusy) / elapsed, evals - worker.reportedEvals,
+          worker.errors));
+      worker.reportedBusy = busy;
+      worker.reportedEvals = evals;
+    }
+    Log.info("Workers (busy, evals, errors): %s", builder.length() == 0 ? "none"
+        : builder.substring(0, builder.length() - 2));
+  }
+
+  private final class Worker extends Thread {
+
+    private volatile long busy;
+    private volatile long evals;
+    private volatile long errors;
+    private long reportedBusy;
+    private long reportedEvals;
+
+    private Worker(String name) {
+      super(name);
+      setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+      EvalScheduler.this.run(this);
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,137 @@
+package com.machinepublishers.neuraltrader;
+
+import com.machinepublishers.neuraltrader.Prices.Marker;
+
+public class Evaluator {
+
+  public static final int TRIES = 48;
+  public static final int PRICE_HISTORY = 6 * 60;
+  public static final int WINDOW = 30;
+  private static final int BATCH = 10;
+  private static final int REFRESH = TRIES / 4;
+  private static final double RACING = Double.parseDouble(System.getProperty("racing", "0"));
+  private static final int RACING_MIN = Math.max(2, Integer.parseInt(
+      System.getProperty("racingMin", Integer.toString(TRIES / 4))));
+  private static final float PRUNE = Float.parseFloat(System.getProperty("prune", "0"));
+  private static final ThreadLocal<Inputs> inputs = ThreadLocal.withInitial(Evaluator::newInputs);
+  private final Prices prices;
+  private final NeuralNet[] baselines;
+  private final double racing;
+
+  public Evaluator(Prices prices, NeuralNet[] baselines) {
+    this(prices, baselines, RACING);
+  }
+
+  public Evaluator(Prices prices, NeuralNet[] baselines, double racing) {
+    this.prices = prices;
+    this.baselines = baselines;
+    this.racing = racing;
+  }
+
+  public ProfitCache newCache() {
+    return new ProfitCache(prices, TRIES * 2, baselines.length);
+  }
+
+  public NeuralNet evalScaled(ProfitCache cache, NeuralNet cur, NeuralNet next) {
+    next = PRUNE > 0 ? next.prune(PRUNE) : next;
+    boolean compareBaseline = cur.isComparable(next);
+    int baselineIndex = Rng.current().nextInt(baselines.length);
+    NeuralNet baseline = baselines[baselineIndex];
+    long baselineProfit = 0;
+    long curProfit = 0;
+    long nextProfit = 0;
+    double diffSquares = 0;
+    int tries = compareBaseline ? TRIES : TRIES * 2;
+    Inputs inputs = Evaluator.inputs.get();
+    cache.refresh(prices, REFRESH);
+    for (int i = 0; i < tries; i++) {
+      int slot = cache.slot(i);
+      Marker offset = cache.marker(slot);
+      inputs.reset(prices.getData(offset), offset.offset());
+      if (compareBaseline) {
+        int profit = cache.baseline(baselineIndex, slot);
+        if (profit == ProfitCache.MISSING) {
+          profit = profit(baseline, inputs);
+          cache.baseline(baselineIndex, slot, profit);
+        }
+        baselineProfit += profit;
+      }
+      int profit = cache.incumbent(cur, slot);
+      if (profit == ProfitCache.MISSING) {
+        profit = profit(cur, inputs);
+        cache.incumbent(slot, profit);
+      }
+      curProfit += profit;
+      int curTry = profit;
+      profit = profit(next, inputs);
+      cache.candidate(slot, profit);
+      nextProfit += profit;
+      diffSquares += (double) (profit - curTry) * (profit - curTry);
+      if (racing > 0 && i + 1 >= RACING_MIN && i + 1 < tries
+          && losing(nextProfit - curProfit, diffSquares, i + 1, tries)) {
+        Metrics.tries(i + 1, tries - i - 1);
+        return cur;
+      }
+    }
+    Metrics.tries(tries, 0);
+    long otherProfit = compareBaseline ? Math.max(baselineProfit, curProfit) : curProfit;
+    if (nextProfit < (otherProfit < 0 ? .98f * otherProfit : 1.02f * otherProfit)) {
+      return cur;
+    }
+    cache.accept(next, tries);
+    return next;
+  }
+
+  private boolean losing(long diff, double diffSquares, int n, int tries) {
+    double mean = (double) diff / n;
+    double sd = Math.sqrt(Math.max(0, diffSquares / n - mean * mean) * n / (n - 1));
+    return diff + (tries - n) * (mean + racing * sd / Math.sqrt(n)) < 0;
+  }
+
+  public static Inputs newInputs() {
+    return new Inputs(PRICE_HISTORY, 2 * WINDOW);
+  }
+
+  public static int profit(NeuralNet net, Inputs inputs) {
+    return profit(net, inputs, true);
+  }
+
+  static int profit(NeuralNet net, Inputs inputs, boolean metered) {
+    Decision[] decisions = new Decision[BATCH];
+    int time = -1;
+    for (int t = 0; t < WINDOW && time == -1; t += BATCH) {
+      int count = Math.min(BATCH, WINDOW - t);
+      decide(net, inputs, t, count, decisions, metered);
+      for (int i = 0; i < count; i++) {
+        if (Decision.BUY == decisions[i]) {
+          time = t + i;
+          break;
+        }
+      }
+    }
+    if (time > -1) {
+      int buyPrice = inputs.price(time);
+      double shares = 100_000d / (float) buyPrice;
+      for (int t = time + 1; t < time + 1 + WINDOW; t += BATCH) {
+        int count = Math.min(BATCH, time + 1 + WINDOW - t);
+        decide(net, inputs, t, count, decisions, metered);
+        for (int i = 0; i < count; i++) {
+          if (Decision.SELL == decisions[i]) {
+            return (int) Math.rint((shares * inputs.price(t + i)) - (shares * buyPrice));
+          }
+        }
+      }
+      return (int) Math.rint((shares * inputs.price(time + WINDOW)) - (shares * buyPrice));
+    }
+    return 0;
+  }
+
+  private static void decide(NeuralNet net, Inputs inputs, int from, int count,
+      Decision[] decisions, boolean metered) {
+    if (metered) {
+      net.decide(inputs, from, count, decisions);
+    } else {
+      NeuralNet.inference().decide(net, inputs, from, count, decisions);
+    }
+  }
+}
\ No newline at end of file
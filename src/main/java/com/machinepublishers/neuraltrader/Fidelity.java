@@ -0,0 +1,33 @@
+package com.machinepublishers.neuraltrader;
+
+import com.machinepublishers.neuraltrader.Prices.Marker;
+
+public class Fidelity {
+
+  public static double agreement(Inference reference, Inference candidate, NeuralNet[] nets,
+      Prices prices, int windows) {
+    Inputs inputs = Evaluator.newInputs();
+    Decision[] expected = new Decision[inputs.positions()];
+    Decision[] actual = new Decision[expected.length];
+    long agreed = 0;
+    long total = 0;
+    for (int w = 0; w < windows; w++) {
+      Marker marker = prices.rand(false);
+      inputs.reset(prices.getData(marker), marker.offset());
+      for (NeuralNet net : nets) {
+        reference.decide(net, inputs, 0, expected.length, expected);
+        candidate.decide(net, inputs, 0, actual.length, actual);
+        for (int i = 0; i < expected.length; i++) {
+          agreed += expected[i] == actual[i] ? 1 : 0;
+        }
+        total += expected.length;
+      }
+    }
+    return total == 0 ? 1d : (double) agreed / (double) total;
+  }
+
+  public static void report(String name, Inference candidate, NeuralNet[] nets, Prices prices) {
+    double agreement = agreement(new ScalarInference(), candidate, nets, prices, 100);
+    Log.info("Inference %s agrees with scalar on %.3f%% of decisions.", name, agreement * 100d);
+  }
+}
\ No newline at end of file
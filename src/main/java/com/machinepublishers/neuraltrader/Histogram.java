@@ -0,0 +1,51 @@
+package com.machinepublishers.neuraltrader;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class Histogram {
+
+  private final LongAdder[] buckets = new LongAdder[Long.SIZE];
+
+  public Histogram() {
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  public void record(long nanos) {
+    buckets[Long.SIZE - 1 - Long.numberOfLeadingZeros(Math.max(1, nanos))].increment();
+  }
+
+  public long[] counts() {
+    long[] counts = new long[buckets.length];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = buckets[i].sum();
+    }
+    return counts;
+  }
+
+  public long count() {
+    long count = 0;
+    for (LongAdder bucket : buckets) {
+      count += bucket.sum();
+    }
+    return count;
+  }
+
+  public double percentileMillis(double percentile) {
+    long[] counts = counts();
+    long total = 0;
+    for (long count : counts) {
+      total += count;
+    }
+    long target = (long) Math.ceil(total * percentile / 100d);
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= target && seen > 0) {
+        return Math.scalb(1d, i + 1) / 1_000_000d;
+      }
+    }
+    return 0;
+  }
+}
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.machinepublishers.neuraltrader;
+
+public interface Inference {
+
+  static Inference create(String name) {
+    if ("vector".equals(name)) {
+      if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+        try {
+          return (Inference) Class.forName(Inference.class.getPackageName() + ".VectorInference")
+              .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+          Log.info("Vector inference unavailable (%s), using scalar.", e);
+        }
+      } else {
+        Log.info("Vector inference needs --add-modules jdk.incubator.vector, using scalar.");
+      }
+    } else if ("int8".equals(name)) {
+      return new QuantizedInference();
+    } else if ("sparse".equals(name)) {
+      return new SparseInference();
+    } else if (name != null && !"scalar".equals(name)) {
+      throw new IllegalArgumentException("Unknown inference: " + name);
+    }
+    return new ScalarInference();
+  }
+
+  static Decision decision(double buy, double sell) {
+    if (buy > 0d && sell <= 0d) {
+      return Decision.BUY;
+    }
+    if (buy <= 0d && sell > 0d) {
+      return Decision.SELL;
+    }
+    return Decision.HOLD;
+  }
+
+  Decision decide(NeuralNet net, Inputs inputs, int position);
+
+  void decide(NeuralNet net, Inputs inputs, int from, int count, Decision[] decisions);
+}
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.machinepublishers.neuraltrader;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+public class Inputs {
+
+  private final int inputLen;
+  private final int positions;
+  private final int[] mins;
+  private final int[] maxes;
+  private final int[] deque;
+  private final double[] shifted;
+  private final double[] scales;
+  private final float[] normalizedFloats;
+  private final boolean[] ready;
+  private final boolean[] readyFloats;
+  private IntBuffer data;
+  private int offset;
+
+  public Inputs(int inputLen, int positions) {
+    this.inputLen = inputLen;
+    this.positions = positions;
+    this.mins = new int[positions];
+    this.maxes = new int[positions];
+    this.deque = new int[inputLen + positions];
+    this.shifted = new double[inputLen * positions];
+    this.scales = new double[positions];
+    this.normalizedFloats = new float[inputLen * positions];
+    this.ready = new boolean[positions];
+    this.readyFloats = new boolean[positions];
+  }
+
+  public Inputs reset(IntBuffer data, int offset) {
+    this.data = data;
+    this.offset = offset;
+    Arrays.fill(ready, false);
+    Arrays.fill(readyFloats, false);
+    slide(true, mins);
+    slide(false, maxes);
+    return this;
+  }
+
+  private void slide(boolean min, int[] extremes) {
+    int head = 0;
+    int tail = 0;
+    for (int i = 0, end = inputLen + positions - 1; i < end; i++) {
+      int value = data.get(offset + i);
+      while (tail > head && (min ? data.get(offset + deque[tail - 1]) >= value
+          : data.get(offset + deque[tail - 1]) <= value)) {
+        --tail;
+      }
+      deque[tail++] = i;
+      int position = i - inputLen + 1;
+      if (position >= 0) {
+        if (deque[head] < position) {
+          ++head;
+        }
+        extremes[position] = data.get(offset + deque[head]);
+      }
+    }
+  }
+
+  public int inputLen() {
+    return inputLen;
+  }
+
+  public int positions() {
+    return positions;
+  }
+
+  public int price(int position) {
+    return data.get(offset + position + inputLen - 1);
+  }
+
+  public double scale(int position) {
+    return scales[position];
+  }
+
+  public double[] shifted(int from, int count) {
+    for (int t = from; t < from + count; t++) {
+      if (!ready[t]) {
+        int min = mins[t];
+        scales[t] = maxes[t] - min;
+        for (int k = 0, in = offset + t, out = t * inputLen; k < inputLen; k++) {
+          shifted[out + k] = data.get(in + k) - min;
+        }
+        ready[t] = true;
+      }
+    }
+    return shifted;
+  }
+
+  public float[] normalizedFloats(int from, int count) {
+    shifted(from, count);
+    for (int t = from; t < from + count; t++) {
+      if (!readyFloats[t]) {
+        for (int k = 0, out = t * inputLen; k < inputLen; k++) {
+          normalizedFloats[out + k] = (float) (shifted[out + k] / scales[t]);
+        }
+        readyFloats[t] = true;
+      }
+    }
+    return normalizedFloats;
+  }
+}
\ No newline at end of file
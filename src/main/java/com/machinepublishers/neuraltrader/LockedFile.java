@@ -6,7 +6,10 @@ import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
+import java.nio.channels.FileChannel.MapMode;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Function;
 
 public class LockedFile {
 
@@ -31,26 +34,37 @@ public class LockedFile {
     }
   }
 
-  public static void write(File f, String string) {
+  public static <T> T read(File f, Function<ByteBuffer, T> reader) {
     synchronized (f.getName().intern()) {
-      try (RandomAccessFile file = new RandomAccessFile(f,
-          "rws"); FileChannel channel = file.getChannel(); FileLock ignored = channel.lock()) {
-        ByteBuffer byteBuffer = ByteBuffer.wrap(string.getBytes(StandardCharsets.UTF_8));
-        while (byteBuffer.hasRemaining()) {
-          channel.write(byteBuffer);
+      try (FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+        FileLock lock = channel.lock(0, Long.MAX_VALUE, true);
+        try {
+          if (channel.size() == 0) {
+            throw new RuntimeException("Empty " + f.getAbsolutePath());
+          }
+          return reader.apply(channel.map(MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+          lock.release();
         }
-        file.setLength(byteBuffer.position());
       } catch (IOException e) {
         throw new RuntimeException(e);
       }
     }
   }
 
-  public static boolean exists(File f) {
+  public static void write(File f, String string) {
+    write(f, ByteBuffer.wrap(string.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  public static void write(File f, ByteBuffer byteBuffer) {
     synchronized (f.getName().intern()) {
       try (RandomAccessFile file = new RandomAccessFile(f,
           "rws"); FileChannel channel = file.getChannel(); FileLock ignored = channel.lock()) {
-        return channel.size() > 0;
+        channel.position(0);
+        while (byteBuffer.hasRemaining()) {
+          channel.write(byteBuffer);
+        }
+        file.setLength(byteBuffer.position());
       } catch (IOException e) {
         throw new RuntimeException(e);
       }
@@ -1,13 +1,17 @@
 package com.machinepublishers.neuraltrader;
 
 import com.machinepublishers.neuraltrader.Prices.Marker;
+import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.rmi.NotBoundException;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
-import java.security.SecureRandom;
-import java.util.Random;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.random.RandomGenerator;
 import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 
@@ -15,131 +19,172 @@ public class Main {
 
   private static final boolean SERVE = Boolean.parseBoolean(System.getProperty("serve"));
   private static final String SERVER = System.getProperty("server");
-  private static final int GROUP = Integer.parseInt(System.getProperty("group"));
+  private static final String TRANSPORT = System.getProperty("transport", "rmi");
+  private static final boolean ISLANDS = Boolean.parseBoolean(System.getProperty("islands"));
+  private static final String TOPOLOGY = System.getProperty("topology", "random");
+  private static final int MIGRATION = Integer.parseInt(System.getProperty("migration", "5000"));
+  private static final int GROUP = ISLANDS ? 0 : Integer.parseInt(System.getProperty("group"));
   private static final int NETS = Integer.parseInt(System.getProperty("nets"));
   private static final int GROUPS = Integer.parseInt(System.getProperty("groups"));
+  private static final int LOCAL = ISLANDS ? NETS * GROUPS : NETS;
+  private static final int EVOLVE_FROM = GROUP == 0 ? NETS : 0;
   private static final long INTERVAL = Integer.parseInt(System.getProperty("interval"));
-  private static final int TRIES = 48;
-  private static final int PRICE_HISTORY = 6 * 60;
-  private static final int WINDOW = 30;
-  private static final Prices prices = new Prices(PRICE_HISTORY + (2 * WINDOW));
-  private static final Random rand = new SecureRandom();
-  private static final AtomicReferenceArray<NeuralNet> nets = new AtomicReferenceArray<>(NETS);
-  private static final AtomicLongArray evolutions = new AtomicLongArray(NETS);
+  private static final int WORKERS = Integer.parseInt(System.getProperty("workers",
+      Integer.toString(Runtime.getRuntime().availableProcessors())));
+  private static final int PREFETCH = 16;
+  private static final Prices prices = new Prices(
+      Evaluator.PRICE_HISTORY + (2 * Evaluator.WINDOW));
+  private static final AtomicReferenceArray<NeuralNet> nets = new AtomicReferenceArray<>(LOCAL);
+  private static final AtomicLongArray evolutions = new AtomicLongArray(LOCAL);
   private static final NeuralNet[] baselines;
+  private static final Evaluator evaluator;
+  private static final ProfitCache[] caches = new ProfitCache[LOCAL];
   private static final Server server;
+  private static final EvalScheduler scheduler;
 
   static {
-    System.setProperty("java.rmi.server.hostname", SERVER);
+    if (SERVER != null) {
+      System.setProperty("java.rmi.server.hostname", SERVER);
+    }
+    if (!"rmi".equals(TRANSPORT) && !"nio".equals(TRANSPORT)) {
+      throw new IllegalArgumentException("Unknown transport: " + TRANSPORT);
+    }
+    if (!"random".equals(TOPOLOGY) && !"ring".equals(TOPOLOGY)) {
+      throw new IllegalArgumentException("Unknown topology: " + TOPOLOGY);
+    }
   }
 
   static {
     Server serverTmp;
     try {
-      if (SERVE) {
+      if (ISLANDS) {
+        serverTmp = new ServerImpl(prices, INTERVAL);
+      } else if (SERVE) {
         serverTmp = startServer();
       } else {
         serverTmp = getServer(SERVER);
       }
-    } catch (RemoteException | NotBoundException e) {
+    } catch (IOException | NotBoundException e) {
       e.printStackTrace();
       serverTmp = null;
     }
-    server = serverTmp;
+    server = serverTmp == null ? null : new MeteredServer(serverTmp);
+    Metrics.register(LOCAL);
 
     try {
-      baselines = new NeuralNet[NETS];
-      for (int n = 0; n < NETS; n++) {
-        baselines[n] = server.download(getKey(), n, n);
-      }
+      int[] indices = new int[NETS];
+      Arrays.setAll(indices, n -> n);
+      baselines = server.downloadMany(getKey(), indices, indices).toArray(new NeuralNet[0]);
     } catch (RemoteException e) {
       throw new IllegalStateException(e);
     }
+    evaluator = new Evaluator(prices, baselines);
+    String[] names = new String[LOCAL - EVOLVE_FROM];
+    Arrays.setAll(names, n -> "n" + id(EVOLVE_FROM + n));
+    scheduler = new EvalScheduler(WORKERS, names, n -> eval(EVOLVE_FROM + n));
+    for (int n = 0; n < LOCAL; n++) {
+      caches[n] = evaluator.newCache();
+    }
   }
 
   public static void main(String[] args) {
-    for (int n = 0; n < NETS * GROUPS; n++) {
-      initNet(n);
+    Log.info("Seed: %d", Rng.seed());
+    if (!(NeuralNet.inference() instanceof ScalarInference)) {
+      Fidelity.report(System.getProperty("inference"), NeuralNet.inference(), baselines, prices);
+    }
+    NeuralNet[] all = new NeuralNet[NETS * GROUPS];
+    for (int n = 0; n < all.length; n++) {
+      all[n] = initNet(n);
     }
-    for (int n = 0; n < NETS; n++) {
-      NeuralNet net = initNet(GROUP * NETS + n);
-      nets.set(n, net);
+    for (int n = 0; n < LOCAL; n++) {
+      nets.set(n, all[id(n)]);
     }
 
     Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-      for (int n = 0; n < NETS; n++) {
-        nets.get(n).save();
+      if (!scheduler.shutdown(10_000)) {
+        Log.info("\nEvaluations did not stop in time.");
       }
+      List<NeuralNet> current = currentNets();
+      NeuralNet.saveAll(current);
       if (server != null) {
-        for (int n = 0; n < NETS; n++) {
-          try {
-            server.upload(getKey(), nets.get(n));
-          } catch (RemoteException e) {
-            e.printStackTrace();
-          }
+        try {
+          server.uploadAll(getKey(), current);
+        } catch (RemoteException e) {
+          e.printStackTrace();
         }
       }
-      Log.info("\nSaved.");
+      if (Checkpoints.flush(10_000)) {
+        Log.info("\nSaved.");
+      } else {
+        Log.info("\nSave timed out.");
+      }
     }));
 
-    if (GROUP != 0) {
-      for (int n = 0; n < NETS; n++) {
-        startEval(nets.get(n), n);
-      }
+    if (EVOLVE_FROM < LOCAL) {
+      scheduler.start();
     }
     startTestLogs();
-    if (GROUP != 0) {
+    if (EVOLVE_FROM < LOCAL) {
       startAutoSave();
     }
   }
 
-  private static Server startServer() throws RemoteException {
+  private static Server startServer() throws IOException {
+    if ("nio".equals(TRANSPORT)) {
+      Server server = new ServerImpl(prices, INTERVAL);
+      NioServer.start(server, NioProtocol.PORT);
+      return server;
+    }
     Registry registry = LocateRegistry.createRegistry(18384);
-    Server server = new ServerImpl(prices);
+    Server server = new ServerImpl(prices, INTERVAL);
     Server stub = (Server) UnicastRemoteObject.exportObject(server, 18384);
     registry.rebind(Server.class.getSimpleName(), stub);
     return server;
   }
 
   private static Server getServer(String serverHost) throws RemoteException, NotBoundException {
+    if ("nio".equals(TRANSPORT)) {
+      return new NioClient(new InetSocketAddress(serverHost, NioProtocol.PORT), getKey());
+    }
     Registry registry = LocateRegistry.getRegistry(serverHost, 18384);
     return (Server) registry.lookup(Server.class.getSimpleName());
   }
 
-  private static void startEval(NeuralNet net, int index) {
-    new Thread(() -> {
-//      long dur = 0, iter = 0; //
-      while (true) {
-//        ++iter; //
-//        long start = System.nanoTime(); //
-        eval(index);
-//        dur += System.nanoTime() - start; //
-//        if (iter % 10 == 0) { //
-//          System.out.println((int) (dur / (iter * 1_000_000d))); //
-//        } //
-      }
-    }, "n" + (GROUP * NETS + index)).start();
-  }
-
   private static void startTestLogs() {
     new Thread(() -> {
       final int day = 48;
       final int recent = 336;
       final int allTime = 4383;
-      int[] profitHistory = new int[allTime];
-      int[][] profitHistoryDetail = new int[NETS][allTime];
-      long totalAll = 0;
-      long[] totalDetail = new long[NETS];
+      RollingProfit profits = new RollingProfit(allTime, recent, day);
+      RollingProfit[] profitsDetail = new RollingProfit[LOCAL];
+      for (int n = 0; n < LOCAL; n++) {
+        profitsDetail[n] = new RollingProfit(allTime, recent, day);
+      }
+      long[] evolutionsShown = new long[LOCAL];
+      Inputs inputs = Evaluator.newInputs();
+      List<Marker> schedule = List.of();
+      long scheduleStart = 0;
       Marker marker;
       for (long x = 0; x < Long.MAX_VALUE; x++) {
         if (INTERVAL > 0) {
           try {
             long now = System.currentTimeMillis();
             long sleep = INTERVAL - (now % INTERVAL);
-            try {
-              marker = server.randPriceMarker(getKey(), false, sleep + now);
-            } catch (RemoteException e) {
-              e.printStackTrace();
+            long sync = sleep + now;
+            int ahead = (int) ((sync - scheduleStart) / INTERVAL);
+            if (sync < scheduleStart || ahead >= schedule.size()) {
+              try {
+                List<Marker> fetched = server.randPriceMarkers(getKey(), false, sync, PREFETCH);
+                schedule = fetched == null ? List.of() : fetched;
+              } catch (RemoteException | RuntimeException e) {
+                e.printStackTrace();
+                schedule = List.of();
+              }
+              scheduleStart = sync;
+              ahead = 0;
+            }
+            marker = ahead < schedule.size() ? prices.resolve(schedule.get(ahead)) : null;
+            if (marker == null) {
               marker = prices.rand(false);
             }
             Thread.sleep(INTERVAL - (now % INTERVAL));
@@ -150,87 +195,53 @@ public class Main {
           marker = prices.rand(false);
         }
 
-        int[] data = prices.getData(marker);
+        inputs.reset(prices.getData(marker), marker.offset());
         int totalProfit = 0;
-        int cur = (int) (x % profitHistory.length);
-        StringBuilder builder = new StringBuilder();
-        builder.append("=================================================================\n");
-        for (int n = 0; n < NETS; n++) {
-          NeuralNet net = nets.get(n);
-          int profit = profit(net, data, marker.offset());
+        for (int n = 0; n < LOCAL; n++) {
+          int profit = Evaluator.profit(nets.get(n), inputs);
           totalProfit += profit;
-          totalDetail[n] += profit;
-          totalAll += profit;
-          profitHistoryDetail[n][cur] = profit;
-          int detailTotal = 0;
-          int detailTotalRecent = 0;
-          int detailTotalDay = 0;
-          for (int i = 0; i < profitHistoryDetail[n].length; i++) {
-            detailTotal += profitHistoryDetail[n][i];
-          }
-          for (int i = 0; i < recent; i++) {
-            int index = cur - i;
-            index = index < 0 ? allTime + index : index;
-            detailTotalRecent += profitHistoryDetail[n][index];
-          }
-          for (int i = 0, start = cur - (cur % day); i < day; i++) {
-            int index = start - i - 1;
-            index = index < 0 ? index + allTime : index;
-            detailTotalDay += profitHistoryDetail[n][index];
-          }
+          profitsDetail[n].add(profit);
           long evolution = evolutions.get(n);
           if (evolution >= 1_000_000) {
             evolutions.set(n, 0);
             evolution = 0;
           }
-          if (GROUP == 0) {
+          if (n < EVOLVE_FROM) {
             evolutions.incrementAndGet(n);
           }
-          builder.append(
-              String.format(">N%02d %06d: %.2f (%.2f) (%.2f) (%.2f) (%.2f)\n", GROUP * NETS + n,
-                  evolution, profit / 100d, totalDetail[n] / 100d, detailTotal / 100d,
-                  detailTotalRecent / 100d, detailTotalDay / 100d));
-        }
-        profitHistory[cur] = totalProfit;
-        int profit = 0;
-        int profitRecent = 0;
-        int profitDay = 0;
-        for (int i = 0; i < profitHistory.length; i++) {
-          profit += profitHistory[i];
-        }
-        for (int i = 0; i < recent; i++) {
-          int index = cur - i;
-          index = index < 0 ? allTime + index : index;
-          profitRecent += profitHistory[index];
+          evolutionsShown[n] = evolution;
         }
-        for (int i = 0, start = cur - (cur % day); i < day; i++) {
-          int index = start - i - 1;
-          index = index < 0 ? index + allTime : index;
-          profitDay += profitHistory[index];
-        }
-        builder.append("=================================================================\n");
-        builder.append(
-            String.format("===== (%.2f) (%.2f) (%.2f) (%.2f)\n", totalAll / 100d, profit / 100d,
-                profitRecent / 100d, profitDay / 100d));
-        builder.append("=================================================================\n");
+        profits.add(totalProfit);
         if (INTERVAL > 0 || x % 100 == 0) {
+          StringBuilder builder = new StringBuilder();
+          builder.append("=================================================================\n");
+          for (int n = 0; n < LOCAL; n++) {
+            RollingProfit detail = profitsDetail[n];
+            builder.append(
+                String.format(">N%02d %06d: %.2f (%.2f) (%.2f) (%.2f) (%.2f)\n", id(n),
+                    evolutionsShown[n], detail.last() / 100d, detail.total() / 100d,
+                    detail.history() / 100d, detail.recent() / 100d, detail.day() / 100d));
+          }
+          builder.append("=================================================================\n");
+          builder.append(
+              String.format("===== (%.2f) (%.2f) (%.2f) (%.2f)\n", profits.total() / 100d,
+                  profits.history() / 100d, profits.recent() / 100d, profits.day() / 100d));
+          builder.append("=================================================================\n");
           System.out.print(builder);
         }
       }
-    }).start();
+    }, "test-logs").start();
   }
 
   private static void startAutoSave() {
     new Thread(() -> {
       while (true) {
-        for (int n = 0; n < NETS; n++) {
-          NeuralNet cur = nets.get(n);
-          if (server != null) {
-            try {
-              server.upload(getKey(), cur);
-            } catch (RemoteException e) {
-              e.printStackTrace();
-            }
+        scheduler.report();
+        if (server != null) {
+          try {
+            server.uploadAll(getKey(), currentNets());
+          } catch (RemoteException e) {
+            e.printStackTrace();
           }
         }
         try {
@@ -239,11 +250,23 @@ public class Main {
           throw new RuntimeException(e);
         }
       }
-    }).start();
+    }, "auto-save").start();
+  }
+
+  private static List<NeuralNet> currentNets() {
+    List<NeuralNet> current = new ArrayList<>();
+    for (int n = 0; n < LOCAL; n++) {
+      current.add(nets.get(n));
+    }
+    return current;
   }
 
   private static NeuralNet initNet(int index) {
-    return NeuralNet.create(index / NETS, index, 5, 45, PRICE_HISTORY);
+    return NeuralNet.create(index / NETS, index, 5, 45, Evaluator.PRICE_HISTORY);
+  }
+
+  private static int id(int index) {
+    return GROUP * NETS + index;
   }
 
   private static NeuralNet save(NeuralNet next, int index) {
@@ -252,23 +275,36 @@ public class Main {
   }
 
   private static NeuralNet randOther(int index, boolean sameGroup) {
+    RandomGenerator rand = Rng.current();
+    int island = index - index % NETS;
     if (sameGroup) {
       int randItem = rand.nextInt(NETS - 1);
-      randItem += randItem < index ? 0 : 1;
-      return nets.get(randItem);
+      randItem += randItem < index - island ? 0 : 1;
+      return nets.get(island + randItem);
     }
     int randItem = rand.nextInt(NETS);
+    int group = id(island) / NETS;
     int randGroup = 0;
-    for (int x = 0; x < 2; x++) {
-      randGroup = rand.nextInt(GROUPS - 1);
-      randGroup += randGroup < GROUP ? 0 : 1;
-      if (randGroup != 0) {
-        break;
+    if ("ring".equals(TOPOLOGY)) {
+      randGroup = group % (GROUPS - 1) + 1;
+    } else {
+      for (int x = 0; x < 2; x++) {
+        randGroup = rand.nextInt(GROUPS - 1);
+        randGroup += randGroup < group ? 0 : 1;
+        if (randGroup != 0) {
+          break;
+        }
       }
     }
+    if (randGroup == group) {
+      return randOther(index, true);
+    }
+    if (ISLANDS) {
+      return nets.get(randGroup * NETS + randItem);
+    }
     if (server != null) {
       try {
-        return server.download(getKey(), randGroup * NETS + randItem, GROUP * NETS + index);
+        return server.download(getKey(), randGroup * NETS + randItem, id(index));
       } catch (RemoteException e) {
         e.printStackTrace();
       }
@@ -279,65 +315,22 @@ public class Main {
   private static void eval(int index) {
     NeuralNet orig = nets.get(index);
     NeuralNet best;
-    if (rand.nextInt(5_000) == 0) {
-      best = evalScaled(index, orig, randOther(index, false).clone(GROUP * NETS + index, true));
+    boolean cloned = Rng.current().nextInt(MIGRATION) == 0;
+    if (cloned) {
+      best = evaluator.evalScaled(caches[index], orig,
+          randOther(index, false).clone(id(index), true));
     } else {
-      best = evalScaled(index, orig, orig.mergeAndMutate(randOther(index, true), 25, 125_000));
+      best = evaluator.evalScaled(caches[index], orig,
+          orig.mergeAndMutate(randOther(index, true), 25, 125_000));
     }
+    Metrics.candidate(cloned);
+    Metrics.eval(index, best != orig);
     if (best != orig) {
+      evolutions.incrementAndGet(index);
       save(best, index);
     }
   }
 
-  private static NeuralNet evalScaled(int index, NeuralNet cur, NeuralNet next) {
-    boolean compareBaseline = cur.isComparable(next);
-    NeuralNet baseline = baselines[rand.nextInt(NETS)];
-    long baselineProfit = 0;
-    long curProfit = 0;
-    long nextProfit = 0;
-    int tries = compareBaseline ? TRIES : TRIES * 2;
-    for (int i = 0; i < tries; i++) {
-      Marker offset = prices.rand(true);
-      int[] data = prices.getData(offset);
-      if (compareBaseline) {
-        baselineProfit += profit(baseline, data, offset.offset());
-      }
-      curProfit += profit(cur, data, offset.offset());
-      nextProfit += profit(next, data, offset.offset());
-    }
-    long otherProfit = compareBaseline ? Math.max(baselineProfit, curProfit) : curProfit;
-    if (nextProfit < (otherProfit < 0 ? .98f * otherProfit : 1.02f * otherProfit)) {
-      return cur;
-    }
-    evolutions.incrementAndGet(index);
-    return next;
-  }
-
-  private static int profit(NeuralNet net, int[] data, int offset) {
-    int time = -1;
-    int buyOffset = -1;
-    double shares = 0d;
-    for (int t = 0; t < WINDOW; t++) {
-      if (Decision.BUY == net.decide(data, offset + t)) {
-        time = t;
-        buyOffset = offset + t + PRICE_HISTORY - 1;
-        shares = 100_000d / (float) data[buyOffset];
-        break;
-      }
-    }
-    if (time > -1) {
-      for (int t = time + 1; t < time + 1 + WINDOW; t++) {
-        if (Decision.SELL == net.decide(data, offset + t)) {
-          return (int) Math.rint(
-              (shares * data[offset + t + PRICE_HISTORY - 1]) - (shares * data[buyOffset]));
-        }
-      }
-      return (int) Math.rint(
-          (shares * data[offset + time + WINDOW + PRICE_HISTORY - 1]) - (shares * data[buyOffset]));
-    }
-    return 0;
-  }
-
   public static String getKey() {
     return "v1^1k?UV(8R,4.a92IsnH6g";
   }
@@ -0,0 +1,99 @@
+package com.machinepublishers.neuraltrader;
+
+import com.machinepublishers.neuraltrader.Metrics.Remote;
+import com.machinepublishers.neuraltrader.Prices.Marker;
+import java.rmi.RemoteException;
+import java.util.List;
+
+public class MeteredServer implements Server {
+
+  private final Server delegate;
+  private final Remote upload = Metrics.remote("upload");
+  private final Remote download = Metrics.remote("download");
+  private final Remote uploadAll = Metrics.remote("uploadAll");
+  private final Remote downloadMany = Metrics.remote("downloadMany");
+  private final Remote randPriceMarker = Metrics.remote("randPriceMarker");
+  private final Remote randPriceMarkers = Metrics.remote("randPriceMarkers");
+
+  public MeteredServer(Server delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public void upload(String key, NeuralNet cur) throws RemoteException {
+    long start = System.nanoTime();
+    boolean error = true;
+    try {
+      delegate.upload(key, cur);
+      error = false;
+    } finally {
+      upload.record(start, error);
+    }
+  }
+
+  @Override
+  public NeuralNet download(String key, int indexFrom, int indexTo) throws RemoteException {
+    long start = System.nanoTime();
+    boolean error = true;
+    try {
+      NeuralNet net = delegate.download(key, indexFrom, indexTo);
+      error = false;
+      return net;
+    } finally {
+      download.record(start, error);
+    }
+  }
+
+  @Override
+  public void uploadAll(String key, List<NeuralNet> nets) throws RemoteException {
+    long start = System.nanoTime();
+    boolean error = true;
+    try {
+      delegate.uploadAll(key, nets);
+      error = false;
+    } finally {
+      uploadAll.record(start, error);
+    }
+  }
+
+  @Override
+  public List<NeuralNet> downloadMany(String key, int[] indexFrom, int[] indexTo)
+      throws RemoteException {
+    long start = System.nanoTime();
+    boolean error = true;
+    try {
+      List<NeuralNet> nets = delegate.downloadMany(key, indexFrom, indexTo);
+      error = false;
+      return nets;
+    } finally {
+      downloadMany.record(start, error);
+    }
+  }
+
+  @Override
+  public Marker randPriceMarker(String key, boolean training, long sync) throws RemoteException {
+    long start = System.nanoTime();
+    boolean error = true;
+    try {
+      Marker marker = delegate.randPriceMarker(key, training, sync);
+      error = false;
+      return marker;
+    } finally {
+      randPriceMarker.record(start, error);
+    }
+  }
+
+  @Override
+  public List<Marker> randPriceMarkers(String key, boolean training, long sync, int count)
+      throws RemoteException {
+    long start = System.nanoTime();
+    boolean error = true;
+    try {
+      List<Marker> markers = delegate.randPriceMarkers(key, training, sync, count);
+      error = false;
+      return markers;
+    } finally {
+      randPriceMarkers.record(start, error);
+    }
+  }
+}
\ No newline at end of file
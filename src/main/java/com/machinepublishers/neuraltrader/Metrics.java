@@ -0,0 +1,228 @@
+package com.machinepublishers.neuraltrader;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public class Metrics implements MetricsMXBean {
+
+  public static final Histogram decide = new Histogram();
+  public static final Histogram decideBatch = new Histogram();
+  public static final Histogram checkpoint = new Histogram();
+  private static final long RATE_WINDOW = 5_000_000_000L;
+  private static final LongAdder candidates = new LongAdder();
+  private static final LongAdder accepted = new LongAdder();
+  private static final LongAdder clones = new LongAdder();
+  private static final LongAdder merges = new LongAdder();
+  private static final LongAdder triesRun = new LongAdder();
+  private static final LongAdder triesSaved = new LongAdder();
+  private static final Map<String, Remote> remote = new TreeMap<>();
+  private static LongAdder[] evals = new LongAdder[0];
+  private long sampledAt = System.nanoTime();
+  private long[] sampled = new long[0];
+  private double[] rates = new double[0];
+
+  public static void register(int nets) {
+    LongAdder[] evals = new LongAdder[nets];
+    for (int n = 0; n < nets; n++) {
+      evals[n] = new LongAdder();
+    }
+    Metrics.evals = evals;
+    try {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(new Metrics(),
+          new ObjectName(Metrics.class.getPackageName() + ":type=Metrics"));
+    } catch (JMException e) {
+      e.printStackTrace();
+    }
+  }
+
+  public static void eval(int index, boolean accept) {
+    LongAdder[] evals = Metrics.evals;
+    if (index < evals.length) {
+      evals[index].increment();
+    }
+    candidates.increment();
+    if (accept) {
+      accepted.increment();
+    }
+  }
+
+  public static void candidate(boolean cloned) {
+    (cloned ? clones : merges).increment();
+  }
+
+  public static void tries(int run, int saved) {
+    triesRun.add(run);
+    if (saved > 0) {
+      triesSaved.add(saved);
+    }
+  }
+
+  public static Remote remote(String name) {
+    synchronized (remote) {
+      return remote.computeIfAbsent(name, key -> new Remote());
+    }
+  }
+
+  private static <T> Map<String, T> remote(Function<Remote, T> value) {
+    Map<String, T> values = new TreeMap<>();
+    synchronized (remote) {
+      remote.forEach((name, metrics) -> values.put(name, value.apply(metrics)));
+    }
+    return values;
+  }
+
+  @Override
+  public long[] getEvals() {
+    long[] counts = new long[evals.length];
+    for (int n = 0; n < counts.length; n++) {
+      counts[n] = evals[n].sum();
+    }
+    return counts;
+  }
+
+  @Override
+  public synchronized double[] getEvalsPerSecond() {
+    long now = System.nanoTime();
+    if (sampled.length != evals.length || now - sampledAt >= RATE_WINDOW) {
+      long[] counts = getEvals();
+      double seconds = (now - sampledAt) / 1_000_000_000d;
+      double[] rates = new double[counts.length];
+      for (int n = 0; n < counts.length && sampled.length == counts.length; n++) {
+        rates[n] = (counts[n] - sampled[n]) / seconds;
+      }
+      this.rates = rates;
+      sampled = counts;
+      sampledAt = now;
+    }
+    return rates.clone();
+  }
+
+  @Override
+  public double getGroupEvalsPerSecond() {
+    double total = 0;
+    for (double rate : getEvalsPerSecond()) {
+      total += rate;
+    }
+    return total;
+  }
+
+  @Override
+  public long getCandidates() {
+    return candidates.sum();
+  }
+
+  @Override
+  public double getAcceptanceRate() {
+    long candidates = Metrics.candidates.sum();
+    return candidates == 0 ? 0 : (double) accepted.sum() / candidates;
+  }
+
+  @Override
+  public long getClones() {
+    return clones.sum();
+  }
+
+  @Override
+  public long getMerges() {
+    return merges.sum();
+  }
+
+  @Override
+  public double getCloneToMergeRatio() {
+    long merges = Metrics.merges.sum();
+    return merges == 0 ? 0 : (double) clones.sum() / merges;
+  }
+
+  @Override
+  public long getTriesRun() {
+    return triesRun.sum();
+  }
+
+  @Override
+  public long getTriesSaved() {
+    return triesSaved.sum();
+  }
+
+  @Override
+  public long[] getDecideLatencyHistogram() {
+    return decide.counts();
+  }
+
+  @Override
+  public double getDecideLatencyP50Millis() {
+    return decide.percentileMillis(50);
+  }
+
+  @Override
+  public double getDecideLatencyP99Millis() {
+    return decide.percentileMillis(99);
+  }
+
+  @Override
+  public long[] getDecideBatchLatencyHistogram() {
+    return decideBatch.counts();
+  }
+
+  @Override
+  public double getDecideBatchLatencyP50Millis() {
+    return decideBatch.percentileMillis(50);
+  }
+
+  @Override
+  public double getDecideBatchLatencyP99Millis() {
+    return decideBatch.percentileMillis(99);
+  }
+
+  @Override
+  public Map<String, Long> getRemoteCalls() {
+    return remote(metrics -> metrics.latency.count());
+  }
+
+  @Override
+  public Map<String, Long> getRemoteErrors() {
+    return remote(metrics -> metrics.errors.sum());
+  }
+
+  @Override
+  public Map<String, Double> getRemoteLatencyP50Millis() {
+    return remote(metrics -> metrics.latency.percentileMillis(50));
+  }
+
+  @Override
+  public Map<String, Double> getRemoteLatencyP99Millis() {
+    return remote(metrics -> metrics.latency.percentileMillis(99));
+  }
+
+  @Override
+  public long getCheckpointWrites() {
+    return checkpoint.count();
+  }
+
+  @Override
+  public double getCheckpointLatencyP50Millis() {
+    return checkpoint.percentileMillis(50);
+  }
+
+  @Override
+  public double getCheckpointLatencyP99Millis() {
+    return checkpoint.percentileMillis(99);
+  }
+
+  public static class Remote {
+
+    private final Histogram latency = new Histogram();
+    private final LongAdder errors = new LongAdder();
+
+    public void record(long startNanos, boolean error) {
+      latency.record(System.nanoTime() - startNanos);
+      if (error) {
+        errors.increment();
+      }
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.machinepublishers.neuraltrader;
+
+import java.util.Map;
+
+public interface MetricsMXBean {
+
+  long[] getEvals();
+
+  double[] getEvalsPerSecond();
+
+  double getGroupEvalsPerSecond();
+
+  long getCandidates();
+
+  double getAcceptanceRate();
+
+  long getClones();
+
+  long getMerges();
+
+  double getCloneToMergeRatio();
+
+  long getTriesRun();
+
+  long getTriesSaved();
+
+  long[] getDecideLatencyHistogram();
+
+  double getDecideLatencyP50Millis();
+
+  double getDecideLatencyP99Millis();
+
+  long[] getDecideBatchLatencyHistogram();
+
+  double getDecideBatchLatencyP50Millis();
+
+  double getDecideBatchLatencyP99Millis();
+
+  Map<String, Long> getRemoteCalls();
+
+  Map<String, Long> getRemoteErrors();
+
+  Map<String, Double> getRemoteLatencyP50Millis();
+
+  Map<String, Double> getRemoteLatencyP99Millis();
+
+  long getCheckpointWrites();
+
+  double getCheckpointLatencyP50Millis();
+
+  double getCheckpointLatencyP99Millis();
+}
\ No newline at end of file
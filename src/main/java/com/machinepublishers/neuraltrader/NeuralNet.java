@@ -1,147 +1,131 @@
 package com.machinepublishers.neuraltrader;
 
+import com.machinepublishers.neuraltrader.WeightFile.Contents;
 import java.io.File;
 import java.io.Serializable;
-import java.security.SecureRandom;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
-import java.util.Random;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.random.RandomGenerator;
 
 public class NeuralNet implements Serializable {
 
-  private static final Random rand = new SecureRandom();
+  private static final Inference inference = Inference.create(System.getProperty("inference"));
   private static final File DATA = new File("./data");
 
   static {
     DATA.mkdirs();
   }
 
-  private final double[] buffer1;
-  private final double[] buffer2;
   private final long generation;
   private final int id;
   private final File file;
-  private final float[][][] weights;
-
-  private NeuralNet(long generation, int id, File saveTo, float[][][] weights) {
+  private final int layers;
+  private final int len;
+  private final int inputLen;
+  private final float[] weights;
+  private transient volatile Object prepared;
+
+  private NeuralNet(long generation, int id, File saveTo, int layers, int len, int inputLen,
+      float[] weights) {
     this.generation = generation;
     this.id = id;
     this.file = saveTo;
+    this.layers = layers;
+    this.len = len;
+    this.inputLen = inputLen;
     this.weights = weights;
-    this.buffer1 = new double[this.weights[0].length];
-    this.buffer2 = new double[this.weights[0].length];
   }
 
   private NeuralNet(long generation, int id, File saveTo, int layers, int len, int inputLen) {
     this.generation = generation;
     this.id = id;
     this.file = saveTo;
-    layers += 1;
-    this.weights = mutate(initWeights(layers, len, inputLen), true, 1_000_000);
-    this.buffer1 = new double[this.weights[0].length];
-    this.buffer2 = new double[this.weights[0].length];
+    this.layers = layers + 1;
+    this.len = len;
+    this.inputLen = inputLen;
+    this.weights = mutate(new float[size(this.layers, len, inputLen)], true, 1_000_000);
   }
 
-  private NeuralNet(int id, File readFrom, File saveTo) {
-    this.id = id;
-    this.file = saveTo;
-    String[] lines = LockedFile.read(readFrom).split("\n");
-
-    String[] dimensions = lines[0].split("/");
-    int layers = Integer.parseInt(dimensions[0]);
-    int len = Integer.parseInt(dimensions[1]);
-    int inputLen = Integer.parseInt(dimensions[2]);
-    this.generation = Long.parseLong(dimensions[3]);
-
-    float[][][] weights = initWeights(layers, len, inputLen);
-    String[] weightTokens = lines[1].split(",");
+  private NeuralNet(int id, File saveTo, Contents contents) {
+    this(contents.generation(), id, saveTo, contents.layers(), contents.len(),
+        contents.inputLen(), contents.weights());
+    if (weights.length != size(layers, len, inputLen)) {
+      throw new IllegalStateException("Unexpected weight count " + weights.length);
+    }
+  }
 
-    for (int i = 0, token = 0; i < weights.length; i++) {
-      for (int j = 0; j < weights[i].length; j++) {
-        for (int k = 0; k < weights[i][j].length; k++) {
-          weights[i][j][k] = Float.parseFloat(weightTokens[token++]);
-        }
-      }
+  private static NeuralNet load(int id, File readFrom, File saveTo) {
+    ByteBuffer pending = Checkpoints.pending(readFrom);
+    Contents contents = pending == null
+        ? LockedFile.read(readFrom, buffer -> WeightFile.decode(readFrom, buffer))
+        : WeightFile.decode(readFrom, pending);
+    if (contents.legacy()) {
+      Checkpoints.save(readFrom, contents.toBinary());
     }
-    this.weights = weights;
-    this.buffer1 = new double[this.weights[0].length];
-    this.buffer2 = new double[this.weights[0].length];
+    return new NeuralNet(id, saveTo, contents);
   }
 
   public static NeuralNet create(int idFrom, int idTo) {
-    return new NeuralNet(idTo, new File(DATA, "n" + idFrom), new File(DATA, "n" + idTo));
+    return load(idTo, new File(DATA, "n" + idFrom), new File(DATA, "n" + idTo));
   }
 
   public static NeuralNet create(long generation, int id, int layers, int len, int inputLen) {
     File file = new File(DATA, "n" + id);
-    if (LockedFile.exists(file)) {
-      return new NeuralNet(id, file, file);
+    if (Checkpoints.pending(file) != null || file.length() > 0) {
+      return load(id, file, file);
     }
     NeuralNet net = new NeuralNet(generation, id, file, layers, len, inputLen);
     net.save();
     return net;
   }
 
-  private static float[][][] initWeights(int layers, int len, int inputLen) {
-    float[][][] weights = new float[layers][][];
-    weights[layers - 1] = new float[2][len];
+  static NeuralNet createUnsaved(long generation, int id, int layers, int len, int inputLen) {
+    return new NeuralNet(generation, id, new File(DATA, "n" + id), layers, len, inputLen);
+  }
 
-    for (int i = 0; i < layers - 1; i++) {
-      weights[i] = new float[len][];
-      for (int j = 0; j < len; j++) {
-        weights[i][j] = new float[i == 0 ? inputLen : len];
-      }
-    }
-    return weights;
+  static NeuralNet createUnsaved(int id, Contents contents) {
+    return new NeuralNet(id, new File(DATA, "n" + id), contents);
   }
 
-  private static float[][][] copy(float[][][] array) {
-    float[][][] copy = new float[array.length][][];
-    for (int i = 0; i < array.length; i++) {
-      copy[i] = new float[array[i].length][];
-      for (int j = 0; j < array[i].length; j++) {
-        copy[i][j] = Arrays.copyOf(array[i][j], array[i][j].length);
-      }
-    }
-    return copy;
+  private static int size(int layers, int len, int inputLen) {
+    return len * inputLen + (layers - 2) * len * len + 2 * len;
   }
 
-  private static float[][][] merge(int mergesPercent, float[][][] array1, float[][][] array2) {
+  private static float[] merge(int mergesPercent, float[] array1, float[] array2) {
+    RandomGenerator rand = Rng.current();
     for (int i = 0; i < array1.length; i++) {
-      for (int j = 0; j < array1[i].length; j++) {
-        for (int k = 0; k < array1[i][j].length; k++) {
-          if (rand.nextInt(100) < mergesPercent) {
-            array1[i][j][k] = array2[i][j][k];
-          }
-        }
+      if (rand.nextInt(100) < mergesPercent) {
+        array1[i] = array2[i];
       }
     }
     return array1;
   }
 
-  private static float[][][] mutate(float[][][] weights, boolean init, int mutationsPerMillion) {
+  private static float[] mutate(float[] weights, boolean init, int mutationsPerMillion) {
+    RandomGenerator rand = Rng.current();
     double max = rand.nextInt(500) == 0 ? .3d : .1d;
     if (mutationsPerMillion > 0) {
       for (int i = 0; i < weights.length; i++) {
-        for (int j = 0; j < weights[i].length; j++) {
-          for (int k = 0; k < weights[i][j].length; k++) {
-            if (mutationsPerMillion == 1_000_000 || rand.nextInt(1_000_000) < mutationsPerMillion) {
-              double newVal;
-              if (init) {
-                newVal = (rand.nextBoolean() ? 1d : -1d) * rand.nextDouble();
-              } else {
-                newVal = rand.nextDouble(.001d, max);
-                newVal *= newVal;
-                double weight = weights[i][j][k];
-                double sign = (weight == 1d ? -1d
-                    : (weight == -1d ? 1d : (rand.nextBoolean() ? 1d : -1d)));
-                newVal = sign * newVal + weight;
-              }
-              newVal = newVal > 1d ? 1d : newVal;
-              newVal = newVal < -1d ? -1d : newVal;
-              newVal = Math.abs(newVal) < .0001d ? 0d : newVal;
-              weights[i][j][k] = (float) newVal;
-            }
+        if (mutationsPerMillion == 1_000_000 || rand.nextInt(1_000_000) < mutationsPerMillion) {
+          double newVal;
+          if (init) {
+            newVal = (rand.nextBoolean() ? 1d : -1d) * rand.nextDouble();
+          } else {
+            newVal = rand.nextDouble(.001d, max);
+            newVal *= newVal;
+            double weight = weights[i];
+            double sign = (weight == 1d ? -1d
+                : (weight == -1d ? 1d : (rand.nextBoolean() ? 1d : -1d)));
+            newVal = sign * newVal + weight;
           }
+          newVal = newVal > 1d ? 1d : newVal;
+          newVal = newVal < -1d ? -1d : newVal;
+          newVal = Math.abs(newVal) < .0001d ? 0d : newVal;
+          weights[i] = (float) newVal;
         }
       }
     }
@@ -149,8 +133,8 @@ public class NeuralNet implements Serializable {
   }
 
   public NeuralNet clone(int newId, boolean newGeneration) {
-    return new NeuralNet(newGeneration ? rand.nextLong() : generation, newId,
-        new File(DATA, "n" + newId), weights);
+    return new NeuralNet(newGeneration ? Rng.current().nextLong() : generation, newId,
+        new File(DATA, "n" + newId), layers, len, inputLen, weights);
   }
 
   public boolean isComparable(NeuralNet other) {
@@ -159,75 +143,89 @@ public class NeuralNet implements Serializable {
 
   public NeuralNet mergeAndMutate(NeuralNet other, int mergesPercent, int mutationsPerMillion) {
     if (generation == other.generation) {
-      return new NeuralNet(generation, id, file,
-          mutate(merge(mergesPercent, copy(weights), other.weights), false, mutationsPerMillion));
+      return new NeuralNet(generation, id, file, layers, len, inputLen,
+          mutate(merge(mergesPercent, Arrays.copyOf(weights, weights.length), other.weights),
+              false, mutationsPerMillion));
     }
     return other.clone(id, false);
   }
 
-  public Decision decide(int[] input, int offset) {
-    double[] buffer = processDecision(input, offset);
-    if (buffer[0] > 0d && buffer[1] <= 0d) {
-      return Decision.BUY;
-    }
-    if (buffer[0] <= 0d && buffer[1] > 0d) {
-      return Decision.SELL;
+  public NeuralNet prune(float threshold) {
+    float[] pruned = null;
+    for (int i = 0; i < weights.length; i++) {
+      if (weights[i] != 0f && Math.abs(weights[i]) < threshold) {
+        pruned = pruned == null ? Arrays.copyOf(weights, weights.length) : pruned;
+        pruned[i] = 0f;
+      }
     }
-    return Decision.HOLD;
+    return pruned == null ? this
+        : new NeuralNet(generation, id, file, layers, len, inputLen, pruned);
   }
 
-  private double[] processDecision(int[] input, int offset) {
-    int max = Integer.MIN_VALUE;
-    int min = Integer.MAX_VALUE;
+  public Decision decide(Inputs inputs, int position) {
+    long start = System.nanoTime();
+    Decision decision = inference.decide(this, inputs, position);
+    Metrics.decide.record(System.nanoTime() - start);
+    return decision;
+  }
 
-    for (int i = offset, size = i + weights[0][0].length; i < size; i++) {
-      max = Math.max(max, input[i]);
-      min = Math.min(min, input[i]);
-    }
-    double scale = max - min;
-    double[] prev = buffer1;
-    double[] next = buffer2;
-    for (int i = 0; i < weights.length; i++) {
-      for (int j = 0; j < weights[i].length; j++) {
-        double sum = 0d;
-        if (i == 0) {
-          for (int k = 0; k < weights[i][j].length; k++) {
-            sum += (double) weights[i][j][k] * (double) (input[k + offset] - min) / scale;
-          }
-        } else {
-          for (int k = 0; k < weights[i][j].length; k++) {
-            sum += (double) weights[i][j][k] * prev[k];
-          }
-        }
-        next[j] = sum > 0d ? sum : 0d;
-      }
-      double[] tmp = prev;
-      prev = next;
-      next = tmp;
+  public void decide(Inputs inputs, int from, int count, Decision[] decisions) {
+    long start = System.nanoTime();
+    inference.decide(this, inputs, from, count, decisions);
+    Metrics.decideBatch.record(System.nanoTime() - start);
+  }
+
+  <T> T prepared(Class<T> type, Function<NeuralNet, T> prepare) {
+    Object prepared = this.prepared;
+    if (!type.isInstance(prepared)) {
+      prepared = prepare.apply(this);
+      this.prepared = prepared;
     }
-    return prev;
+    return type.cast(prepared);
+  }
+
+  static Inference inference() {
+    return inference;
+  }
+
+  int layers() {
+    return layers;
+  }
+
+  int len() {
+    return len;
+  }
+
+  int inputLen() {
+    return inputLen;
+  }
+
+  float[] weights() {
+    return weights;
+  }
+
+  int id() {
+    return id;
+  }
+
+  Contents contents() {
+    return new Contents(layers, len, inputLen, generation, weights, false);
   }
 
   @Override
   public String toString() {
-    StringBuilder builder = new StringBuilder();
-    builder.append(weights.length).append("/");
-    builder.append(weights[0].length).append("/");
-    builder.append(weights[0][0].length).append("/");
-    builder.append(generation).append("/");
-    builder.append("\n");
-
-    for (int i = 0; i < weights.length; i++) {
-      for (int j = 0; j < weights[i].length; j++) {
-        for (int k = 0; k < weights[i][j].length; k++) {
-          builder.append(weights[i][j][k]).append(",");
-        }
-      }
-    }
-    return builder.toString();
+    return contents().toText();
   }
 
   public void save() {
-    LockedFile.write(file, toString());
+    Checkpoints.save(file, contents().toBinary());
+  }
+
+  public static void saveAll(List<NeuralNet> nets) {
+    Map<File, ByteBuffer> files = new LinkedHashMap<>();
+    for (NeuralNet net : nets) {
+      files.put(net.file, net.contents().toBinary());
+    }
+    Checkpoints.saveAll(files);
   }
 }
\ No newline at end of file
@@ -0,0 +1,259 @@
+package com.machinepublishers.neuraltrader;
+
+import com.machinepublishers.neuraltrader.Prices.Marker;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NioClient implements Server {
+
+  private static final boolean DELTA = Boolean.parseBoolean(System.getProperty("delta", "true"));
+  private static final long TIMEOUT = 60_000;
+  private final InetSocketAddress address;
+  private final String key;
+  private final long timeout;
+  private final AtomicInteger reqIds = new AtomicInteger();
+  private Connection connection;
+
+  public NioClient(InetSocketAddress address, String key) {
+    this(address, key, TIMEOUT);
+  }
+
+  NioClient(InetSocketAddress address, String key, long timeout) {
+    this.address = address;
+    this.key = key;
+    this.timeout = timeout;
+  }
+
+  private static <T> T await(CompletableFuture<T> future) throws RemoteException {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof TimeoutException) {
+        throw new RemoteException("Request timed out", e.getCause());
+      }
+      throw new RemoteException("Request failed", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RemoteException("Interrupted", e);
+    }
+  }
+
+  @Override
+  public void upload(String key, NeuralNet cur) throws RemoteException {
+    await(uploadAsync(cur));
+  }
+
+  @Override
+  public NeuralNet download(String key, int indexFrom, int indexTo) throws RemoteException {
+    return await(downloadAsync(indexFrom, indexTo));
+  }
+
+  @Override
+  public void uploadAll(String key, List<NeuralNet> nets) throws RemoteException {
+    await(uploadAllAsync(nets));
+  }
+
+  @Override
+  public List<NeuralNet> downloadMany(String key, int[] indexFrom, int[] indexTo)
+      throws RemoteException {
+    return await(downloadManyAsync(indexFrom, indexTo));
+  }
+
+  @Override
+  public Marker randPriceMarker(String key, boolean training, long sync)
+      throws RemoteException {
+    return await(randPriceMarkerAsync(training, sync));
+  }
+
+  @Override
+  public List<Marker> randPriceMarkers(String key, boolean training, long sync, int count)
+      throws RemoteException {
+    return await(randPriceMarkersAsync(training, sync, count));
+  }
+
+  public CompletableFuture<Void> uploadAsync(NeuralNet cur) {
+    int reqId = reqIds.incrementAndGet();
+    return send(new Call<>(reqId, (response, bases) -> null),
+        NioProtocol.putNet(NioProtocol.frame(NioProtocol.UPLOAD, reqId, 0), cur));
+  }
+
+  public CompletableFuture<NeuralNet> downloadAsync(int indexFrom, int indexTo) {
+    int reqId = reqIds.incrementAndGet();
+    ByteBuffer frame = NioProtocol.frame(NioProtocol.DOWNLOAD, reqId, 2 * Integer.BYTES + 1);
+    frame.putInt(indexFrom).putInt(indexTo).put((byte) (DELTA ? 1 : 0));
+    return send(new Call<>(reqId, (response, bases) -> NeuralNet.createUnsaved(indexTo,
+        NioProtocol.getWeights(response, indexFrom, bases))), frame);
+  }
+
+  public CompletableFuture<Void> uploadAllAsync(List<NeuralNet> nets) {
+    int reqId = reqIds.incrementAndGet();
+    ByteBuffer frame = NioProtocol.frame(NioProtocol.UPLOAD_ALL, reqId, Integer.BYTES)
+        .putInt(nets.size());
+    for (NeuralNet net : nets) {
+      frame = NioProtocol.putNet(frame, net);
+    }
+    return send(new Call<>(reqId, (response, bases) -> null), frame);
+  }
+
+  public CompletableFuture<List<NeuralNet>> downloadManyAsync(int[] indexFrom, int[] indexTo) {
+    int reqId = reqIds.incrementAndGet();
+    ByteBuffer frame = NioProtocol.frame(NioProtocol.DOWNLOAD_MANY, reqId,
+        Integer.BYTES + 1 + indexFrom.length * 2 * Integer.BYTES);
+    frame.putInt(indexFrom.length).put((byte) (DELTA ? 1 : 0));
+    for (int i = 0; i < indexFrom.length; i++) {
+      frame.putInt(indexFrom[i]).putInt(indexTo[i]);
+    }
+    return send(new Call<>(reqId, (response, bases) -> {
+      List<NeuralNet> nets = new ArrayList<>();
+      for (int i = 0, count = response.getInt(); i < count; i++) {
+        nets.add(NeuralNet.createUnsaved(indexTo[i],
+            NioProtocol.getWeights(response, indexFrom[i], bases)));
+      }
+      return nets;
+    }), frame);
+  }
+
+  public CompletableFuture<Marker> randPriceMarkerAsync(boolean training, long sync) {
+    int reqId = reqIds.incrementAndGet();
+    ByteBuffer frame = NioProtocol.frame(NioProtocol.MARKER, reqId, 1 + Long.BYTES);
+    frame.put((byte) (training ? 1 : 0)).putLong(sync);
+    return send(new Call<>(reqId, (response, bases) -> NioProtocol.getMarker(response)), frame);
+  }
+
+  public CompletableFuture<List<Marker>> randPriceMarkersAsync(boolean training, long sync,
+      int count) {
+    int reqId = reqIds.incrementAndGet();
+    ByteBuffer frame = NioProtocol.frame(NioProtocol.MARKERS, reqId,
+        1 + Long.BYTES + Integer.BYTES);
+    frame.put((byte) (training ? 1 : 0)).putLong(sync).putInt(count);
+    return send(new Call<>(reqId, (response, bases) -> {
+      List<Marker> markers = new ArrayList<>();
+      for (int i = response.getInt(); i > 0; i--) {
+        markers.add(NioProtocol.getMarker(response));
+      }
+      return markers;
+    }), frame);
+  }
+
+  private <T> CompletableFuture<T> send(Call<T> call, ByteBuffer frame) {
+    Connection connection;
+    synchronized (this) {
+      if (this.connection == null || !this.connection.channel.isOpen()) {
+        try {
+          this.connection = new Connection();
+        } catch (IOException e) {
+          call.future.completeExceptionally(e);
+          return call.future;
+        }
+      }
+      connection = this.connection;
+    }
+    connection.calls.put(call.reqId, call);
+    call.future.orTimeout(timeout, TimeUnit.MILLISECONDS)
+        .whenComplete((value, e) -> connection.calls.remove(call.reqId, call));
+    try {
+      synchronized (connection) {
+        NioProtocol.write(connection.channel, frame);
+      }
+    } catch (IOException e) {
+      connection.close(e);
+    }
+    return call.future;
+  }
+
+  synchronized int pending() {
+    return connection == null ? 0 : connection.calls.size();
+  }
+
+  private interface Decoder<T> {
+
+    T decode(ByteBuffer response, Map<Integer, float[]> bases) throws IOException;
+  }
+
+  private record Call<T>(int reqId, Decoder<T> decoder, CompletableFuture<T> future) {
+
+    Call(int reqId, Decoder<T> decoder) {
+      this(reqId, decoder, new CompletableFuture<>());
+    }
+  }
+
+  private class Connection {
+
+    private final SocketChannel channel;
+    private final Map<Integer, Call<?>> calls = new ConcurrentHashMap<>();
+    private final Map<Integer, float[]> bases = new HashMap<>();
+
+    Connection() throws IOException {
+      channel = SocketChannel.open(address);
+      channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+      byte[] hello = key.getBytes(StandardCharsets.UTF_8);
+      NioProtocol.write(channel,
+          NioProtocol.frame(NioProtocol.HELLO, 0, hello.length).put(hello));
+      Thread reader = new Thread(this::read, "nio-client-" + address);
+      reader.setDaemon(true);
+      reader.start();
+    }
+
+    private void read() {
+      try {
+        while (true) {
+          ByteBuffer response = NioProtocol.read(channel);
+          byte status = response.get();
+          int reqId = response.getInt();
+          Call<?> call = calls.remove(reqId);
+          if (call == null) {
+            throw new IOException("Response to timed out request " + reqId);
+          }
+          try {
+            complete(call, status, response);
+          } catch (IOException | RuntimeException e) {
+            call.future.completeExceptionally(e);
+            throw e;
+          }
+        }
+      } catch (IOException | RuntimeException e) {
+        close(e);
+      }
+    }
+
+    private <T> void complete(Call<T> call, byte status, ByteBuffer response) throws IOException {
+      if (status == NioProtocol.OK) {
+        call.future.complete(call.decoder.decode(response, bases));
+      } else if (status == NioProtocol.NULL) {
+        call.future.complete(null);
+      } else {
+        call.future.completeExceptionally(
+            new RemoteException(StandardCharsets.UTF_8.decode(response).toString()));
+      }
+    }
+
+    private void close(Exception cause) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        cause.addSuppressed(e);
+      }
+      for (Integer reqId : calls.keySet()) {
+        Call<?> call = calls.remove(reqId);
+        if (call != null) {
+          call.future.completeExceptionally(cause);
+        }
+      }
+    }
+  }
+}
\ No newline at end of file
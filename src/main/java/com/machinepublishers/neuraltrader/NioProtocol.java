@@ -0,0 +1,179 @@
+package com.machinepublishers.neuraltrader;
+
+import com.machinepublishers.neuraltrader.Prices.Marker;
+import com.machinepublishers.neuraltrader.WeightFile.Contents;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+public class NioProtocol {
+
+  public static final int PORT = 18385;
+  static final byte HELLO = 0;
+  static final byte UPLOAD = 1;
+  static final byte DOWNLOAD = 2;
+  static final byte MARKER = 3;
+  static final byte MARKERS = 4;
+  static final byte UPLOAD_ALL = 5;
+  static final byte DOWNLOAD_MANY = 6;
+  static final byte OK = 0;
+  static final byte NULL = 1;
+  static final byte ERROR = 2;
+  private static final byte FULL = 0;
+  private static final byte DELTA = 1;
+  private static final int MAX_FRAME = 1 << 26;
+
+  static ByteBuffer frame(byte op, int reqId, int payloadLen) {
+    return ByteBuffer.allocate(Integer.BYTES + 1 + Integer.BYTES + payloadLen)
+        .putInt(0).put(op).putInt(reqId);
+  }
+
+  static void write(SocketChannel channel, ByteBuffer frame) throws IOException {
+    frame.putInt(0, frame.position() - Integer.BYTES).flip();
+    while (frame.hasRemaining()) {
+      channel.write(frame);
+    }
+  }
+
+  static ByteBuffer read(SocketChannel channel) throws IOException {
+    ByteBuffer len = fill(channel, ByteBuffer.allocate(Integer.BYTES));
+    int size = len.getInt(0);
+    if (size < 1 + Integer.BYTES || size > MAX_FRAME) {
+      throw new IOException("Bad frame length " + size);
+    }
+    return fill(channel, ByteBuffer.allocate(size)).flip();
+  }
+
+  private static ByteBuffer fill(SocketChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        throw new EOFException();
+      }
+    }
+    return buffer;
+  }
+
+  static ByteBuffer putNet(ByteBuffer frame, NeuralNet net) {
+    ByteBuffer bytes = net.contents().toBinary();
+    return grow(frame, 2 * Integer.BYTES + bytes.remaining()).putInt(net.id())
+        .putInt(bytes.remaining()).put(bytes);
+  }
+
+  static NeuralNet getNet(ByteBuffer buffer) {
+    int id = buffer.getInt();
+    int size = buffer.getInt();
+    ByteBuffer bytes = buffer.slice(buffer.position(), size);
+    buffer.position(buffer.position() + bytes.remaining());
+    return NeuralNet.createUnsaved(id, WeightFile.decode(new File("n" + id), bytes));
+  }
+
+  static ByteBuffer putWeights(ByteBuffer frame, Contents contents, float[] base) {
+    float[] weights = contents.weights();
+    int changed = 0;
+    if (base != null && base.length == weights.length) {
+      for (int i = 0; i < weights.length; i++) {
+        if (Float.floatToRawIntBits(weights[i]) != Float.floatToRawIntBits(base[i])) {
+          ++changed;
+        }
+      }
+    }
+    if (base == null || base.length != weights.length
+        || changed * 2 * Integer.BYTES >= weights.length * Float.BYTES) {
+      ByteBuffer bytes = contents.toBinary();
+      return grow(frame, 1 + Integer.BYTES + bytes.remaining()).put(FULL)
+          .putInt(bytes.remaining()).put(bytes);
+    }
+    frame = grow(frame, 1 + 3 * Integer.BYTES + Long.BYTES + 2 * Integer.BYTES
+        + changed * 2 * Integer.BYTES);
+    frame.put(DELTA).putInt(contents.layers()).putInt(contents.len())
+        .putInt(contents.inputLen()).putLong(contents.generation()).putInt(changed);
+    for (int i = 0; i < weights.length; i++) {
+      int xor = Float.floatToRawIntBits(weights[i]) ^ Float.floatToRawIntBits(base[i]);
+      if (xor != 0) {
+        frame.putInt(i).putInt(xor);
+      }
+    }
+    return frame.putInt(crc(weights));
+  }
+
+  static Contents getWeights(ByteBuffer buffer, int index, Map<Integer, float[]> bases)
+      throws IOException {
+    Contents contents;
+    if (buffer.get() == FULL) {
+      int size = buffer.getInt();
+      contents = WeightFile.decode(new File("n" + index), buffer.slice(buffer.position(), size));
+      buffer.position(buffer.position() + size);
+    } else {
+      int layers = buffer.getInt();
+      int len = buffer.getInt();
+      int inputLen = buffer.getInt();
+      long generation = buffer.getLong();
+      float[] base = bases.get(index);
+      if (base == null) {
+        throw new IOException("Delta without base for n" + index);
+      }
+      float[] weights = base.clone();
+      for (int i = buffer.getInt(); i > 0; i--) {
+        int pos = buffer.getInt();
+        weights[pos] = Float.intBitsToFloat(Float.floatToRawIntBits(weights[pos])
+            ^ buffer.getInt());
+      }
+      if (crc(weights) != buffer.getInt()) {
+        throw new IOException("Delta checksum mismatch for n" + index);
+      }
+      contents = new Contents(layers, len, inputLen, generation, weights, false);
+    }
+    bases.put(index, contents.weights());
+    return contents;
+  }
+
+  static int markerLen(Marker marker) {
+    return 1 + 2 * Integer.BYTES + Short.BYTES
+        + (marker.name() == null ? 0 : marker.name().getBytes(StandardCharsets.UTF_8).length);
+  }
+
+  static void putMarker(ByteBuffer buffer, Marker marker) {
+    buffer.put((byte) (marker.training() ? 1 : 0)).putInt(marker.dataset())
+        .putInt(marker.offset());
+    if (marker.name() == null) {
+      buffer.putShort((short) -1);
+    } else {
+      byte[] name = marker.name().getBytes(StandardCharsets.UTF_8);
+      buffer.putShort((short) name.length).put(name);
+    }
+  }
+
+  static Marker getMarker(ByteBuffer buffer) {
+    boolean training = buffer.get() != 0;
+    int dataset = buffer.getInt();
+    int offset = buffer.getInt();
+    short len = buffer.getShort();
+    String name = null;
+    if (len >= 0) {
+      name = StandardCharsets.UTF_8.decode(buffer.slice(buffer.position(), len)).toString();
+      buffer.position(buffer.position() + len);
+    }
+    return new Marker(training, dataset, offset, name);
+  }
+
+  private static ByteBuffer grow(ByteBuffer frame, int needed) {
+    if (frame.remaining() >= needed) {
+      return frame;
+    }
+    ByteBuffer bigger = ByteBuffer.allocate(frame.position() + needed);
+    return bigger.put(frame.flip());
+  }
+
+  private static int crc(float[] weights) {
+    ByteBuffer bytes = ByteBuffer.allocate(weights.length * Float.BYTES);
+    bytes.asFloatBuffer().put(weights);
+    CRC32 crc = new CRC32();
+    crc.update(bytes);
+    return (int) crc.getValue();
+  }
+}
\ No newline at end of file
@@ -0,0 +1,160 @@
+package com.machinepublishers.neuraltrader;
+
+import com.machinepublishers.neuraltrader.Prices.Marker;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class NioServer {
+
+  private final Server delegate;
+  private final SocketChannel channel;
+  private final Map<Integer, float[]> sent = new HashMap<>();
+  private String key;
+
+  private NioServer(Server delegate, SocketChannel channel) {
+    this.delegate = delegate;
+    this.channel = channel;
+  }
+
+  public static void start(Server delegate, int port) throws IOException {
+    ServerSocketChannel server = ServerSocketChannel.open().bind(new InetSocketAddress(port));
+    Thread accept = new Thread(() -> {
+      while (true) {
+        try {
+          SocketChannel channel = server.accept();
+          channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+          Thread connection = new Thread(new NioServer(delegate, channel)::serve,
+              "nio-" + channel.getRemoteAddress());
+          connection.setDaemon(true);
+          connection.start();
+        } catch (IOException e) {
+          e.printStackTrace();
+        }
+      }
+    }, "nio-accept");
+    accept.setDaemon(true);
+    accept.start();
+  }
+
+  private void serve() {
+    try (channel) {
+      while (true) {
+        ByteBuffer request = NioProtocol.read(channel);
+        byte op = request.get();
+        int reqId = request.getInt();
+        ByteBuffer response;
+        try {
+          response = handle(op, reqId, request);
+        } catch (RuntimeException e) {
+          byte[] message = String.valueOf(e).getBytes(StandardCharsets.UTF_8);
+          response = NioProtocol.frame(NioProtocol.ERROR, reqId, message.length).put(message);
+        }
+        if (response != null) {
+          NioProtocol.write(channel, response);
+        }
+      }
+    } catch (EOFException e) {
+      // Client went away.
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  private ByteBuffer handle(byte op, int reqId, ByteBuffer request) throws IOException {
+    switch (op) {
+      case NioProtocol.HELLO -> {
+        key = StandardCharsets.UTF_8.decode(request).toString();
+        return null;
+      }
+      case NioProtocol.UPLOAD -> {
+        delegate.upload(key, NioProtocol.getNet(request));
+        return NioProtocol.frame(NioProtocol.OK, reqId, 0);
+      }
+      case NioProtocol.DOWNLOAD -> {
+        int indexFrom = request.getInt();
+        int indexTo = request.getInt();
+        boolean delta = request.get() != 0;
+        NeuralNet net = delegate.download(key, indexFrom, indexTo);
+        if (net == null) {
+          return NioProtocol.frame(NioProtocol.NULL, reqId, 0);
+        }
+        ByteBuffer response = NioProtocol.putWeights(NioProtocol.frame(NioProtocol.OK, reqId, 0),
+            net.contents(), delta ? sent.get(indexFrom) : null);
+        sent.put(indexFrom, net.weights());
+        return response;
+      }
+      case NioProtocol.UPLOAD_ALL -> {
+        List<NeuralNet> nets = new ArrayList<>();
+        for (int i = request.getInt(); i > 0; i--) {
+          nets.add(NioProtocol.getNet(request));
+        }
+        delegate.uploadAll(key, nets);
+        return NioProtocol.frame(NioProtocol.OK, reqId, 0);
+      }
+      case NioProtocol.DOWNLOAD_MANY -> {
+        int[] indexFrom = new int[request.getInt()];
+        int[] indexTo = new int[indexFrom.length];
+        boolean delta = request.get() != 0;
+        for (int i = 0; i < indexFrom.length; i++) {
+          indexFrom[i] = request.getInt();
+          indexTo[i] = request.getInt();
+        }
+        List<NeuralNet> nets = delegate.downloadMany(key, indexFrom, indexTo);
+        if (nets == null) {
+          return NioProtocol.frame(NioProtocol.NULL, reqId, 0);
+        }
+        ByteBuffer response = NioProtocol.frame(NioProtocol.OK, reqId, Integer.BYTES)
+            .putInt(nets.size());
+        for (int i = 0; i < nets.size(); i++) {
+          NeuralNet net = nets.get(i);
+          response = NioProtocol.putWeights(response, net.contents(),
+              delta ? sent.get(indexFrom[i]) : null);
+          sent.put(indexFrom[i], net.weights());
+        }
+        return response;
+      }
+      case NioProtocol.MARKER -> {
+        boolean training = request.get() != 0;
+        long sync = request.getLong();
+        Marker marker = delegate.randPriceMarker(key, training, sync);
+        if (marker == null) {
+          return NioProtocol.frame(NioProtocol.NULL, reqId, 0);
+        }
+        ByteBuffer response = NioProtocol.frame(NioProtocol.OK, reqId,
+            NioProtocol.markerLen(marker));
+        NioProtocol.putMarker(response, marker);
+        return response;
+      }
+      case NioProtocol.MARKERS -> {
+        boolean training = request.get() != 0;
+        long sync = request.getLong();
+        int count = request.getInt();
+        List<Marker> markers = delegate.randPriceMarkers(key, training, sync, count);
+        if (markers == null) {
+          return NioProtocol.frame(NioProtocol.NULL, reqId, 0);
+        }
+        int len = Integer.BYTES;
+        for (Marker marker : markers) {
+          len += NioProtocol.markerLen(marker);
+        }
+        ByteBuffer response = NioProtocol.frame(NioProtocol.OK, reqId, len);
+        response.putInt(markers.size());
+        for (Marker marker : markers) {
+          NioProtocol.putMarker(response, marker);
+        }
+        return response;
+      }
+      default -> throw new IOException("Unknown op " + op);
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,245 @@
+package com.machinepublishers.neuraltrader;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+public class PriceIngest {
+
+  private final int priceCol;
+  private final File file;
+  private final boolean tailing;
+  private byte[] line = new byte[256];
+  private int lineLen;
+  private long lineNumber;
+  private long consumed;
+  private long rows;
+  private double prevPrice = -1;
+
+  public PriceIngest(int priceCol, File file) {
+    this(priceCol, file, false);
+  }
+
+  public PriceIngest(int priceCol, File file, boolean tailing) {
+    this.priceCol = priceCol;
+    this.file = file;
+    this.tailing = tailing;
+  }
+
+  public static void processAll(List<PriceIngest> ingests) {
+    ingests.parallelStream().forEach(PriceIngest::process);
+  }
+
+  public static File dist(File file) {
+    return new File(file.getParentFile().getParentFile() + "-dist", file.getName());
+  }
+
+  public void process() {
+    File dist = dist(file);
+    if (!dist.exists()) {
+      dist.getParentFile().mkdirs();
+      Path tmp = null;
+      try {
+        tmp = Files.createTempFile(dist.getParentFile().toPath(), "." + dist.getName() + ".",
+            ".tmp");
+        try (DataOutputStream dataOut = new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+          rows = append(dataOut, !tailing, Long.MAX_VALUE);
+        }
+        try {
+          Files.move(tmp, dist.toPath(), StandardCopyOption.ATOMIC_MOVE,
+              StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+          if (!dist.exists()) {
+            throw e;
+          }
+        }
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      } finally {
+        if (tmp != null) {
+          tmp.toFile().delete();
+        }
+      }
+    }
+  }
+
+  public int tail() throws IOException {
+    try (FileChannel channel = FileChannel.open(dist(file).toPath(), StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      FileLock lock = channel.lock();
+      try {
+        return tail(channel);
+      } finally {
+        lock.release();
+      }
+    }
+  }
+
+  private int tail(FileChannel channel) throws IOException {
+    long distRows = channel.size() / Integer.BYTES;
+    if (distRows > rows) {
+      rows += append(new DataOutputStream(OutputStream.nullOutputStream()), false,
+          distRows - rows);
+    }
+    if (distRows != rows) {
+      return 0;
+    }
+    long consumed = this.consumed;
+    long lineNumber = this.lineNumber;
+    double prevPrice = this.prevPrice;
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    int count;
+    try {
+      count = append(new DataOutputStream(bytes), false, Long.MAX_VALUE);
+    } catch (RuntimeException e) {
+      this.consumed = consumed;
+      this.lineNumber = lineNumber;
+      this.prevPrice = prevPrice;
+      throw e;
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+    for (long position = distRows * Integer.BYTES; buffer.hasRemaining(); ) {
+      position += channel.write(buffer, position);
+    }
+    rows += count;
+    return count;
+  }
+
+  private int append(DataOutputStream dataOut, boolean finish, long limit) throws IOException {
+    int count = 0;
+    lineLen = 0;
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+      long position = consumed;
+      for (int read = channel.read(buffer, position); read > 0 && count < limit;
+          read = channel.read(buffer, position)) {
+        position += read;
+        byte[] bytes = buffer.array();
+        for (int i = 0; i < read && count < limit; i++) {
+          if (bytes[i] == '\n') {
+            count += line(dataOut);
+            consumed += lineLen + 1;
+            lineLen = 0;
+          } else {
+            if (lineLen == line.length) {
+              line = Arrays.copyOf(line, line.length * 2);
+            }
+            line[lineLen++] = bytes[i];
+          }
+        }
+        buffer.clear();
+      }
+    }
+    if (finish && lineLen > 0 && count < limit) {
+      count += line(dataOut);
+      consumed += lineLen;
+      lineLen = 0;
+    }
+    return count;
+  }
+
+  public long consumed() {
+    return consumed;
+  }
+
+  private int line(DataOutputStream dataOut) throws IOException {
+    int len = lineLen > 0 && line[lineLen - 1] == '\r' ? lineLen - 1 : lineLen;
+    if (lineNumber++ == 0) {
+      return 0;
+    }
+    int start = 0;
+    for (int col = 0; col < priceCol; col++) {
+      while (start < len && line[start] != ',') {
+        ++start;
+      }
+      if (start == len) {
+        throw new IllegalStateException(
+            String.format("Missing price column in %s:%d: %s", file.getAbsolutePath(),
+                lineNumber, text(0, len)));
+      }
+      ++start;
+    }
+    int end = start;
+    while (end < len && line[end] != ',') {
+      ++end;
+    }
+    double priceTmp = cents(start, end);
+    if (Double.isNaN(priceTmp)) {
+      String token = text(start, end);
+      try {
+        priceTmp = Double.parseDouble(token);
+      } catch (NumberFormatException e) {
+        throw new IllegalStateException(
+            String.format("Unparseable price '%s' in %s:%d", token, file.getAbsolutePath(),
+                lineNumber), e);
+      }
+      if (!Double.isFinite(priceTmp)) {
+        return 0;
+      }
+      priceTmp = Math.rint(priceTmp * 100d);
+    }
+    if (priceTmp > Integer.MAX_VALUE || priceTmp < Integer.MIN_VALUE) {
+      throw new IllegalStateException(
+          String.format("Price overflow '%s' (%f) in %s:%d", text(start, end), priceTmp,
+              file.getAbsolutePath(), lineNumber));
+    }
+    if (priceTmp == 0) {
+      throw new IllegalStateException(
+          String.format("Unusual price in %s:%d: %s", file.getAbsolutePath(), lineNumber,
+              text(0, len)));
+    }
+    if (prevPrice != -1 && Math.abs(prevPrice - priceTmp) / priceTmp > .5) {
+      throw new IllegalStateException(
+          String.format("Unusual price change in %s:%d: %s", file.getAbsolutePath(), lineNumber,
+              text(0, len)));
+    }
+    prevPrice = priceTmp;
+    dataOut.writeInt((int) priceTmp);
+    return 1;
+  }
+
+  private double cents(int start, int end) {
+    boolean negative = start < end && line[start] == '-';
+    long value = 0;
+    int digits = 0;
+    int fraction = -1;
+    for (int i = negative ? start + 1 : start; i < end; i++) {
+      byte b = line[i];
+      if (b >= '0' && b <= '9') {
+        value = value * 10 + (b - '0');
+        if (++digits > 15 || (fraction >= 0 && ++fraction > 2)) {
+          return Double.NaN;
+        }
+      } else if (b == '.' && fraction < 0) {
+        fraction = 0;
+      } else {
+        return Double.NaN;
+      }
+    }
+    if (digits == 0) {
+      return Double.NaN;
+    }
+    for (int i = Math.max(fraction, 0); i < 2; i++) {
+      value *= 10;
+    }
+    return negative ? -value : value;
+  }
+
+  private String text(int start, int end) {
+    return new String(line, start, end - start, StandardCharsets.ISO_8859_1);
+  }
+}
\ No newline at end of file
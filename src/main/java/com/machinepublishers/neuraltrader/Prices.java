@@ -1,156 +1,242 @@
 package com.machinepublishers.neuraltrader;
 
-import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
-import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.Serializable;
-import java.security.SecureRandom;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Random;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.random.RandomGenerator;
 import java.util.stream.Stream;
 
 public class Prices {
 
-  private static final Random rand = new SecureRandom();
+  private static final File TRAINING = new File("./prices/training");
+  private static final File ALT = new File("./prices/alt");
+  private static final long TAIL = Long.parseLong(System.getProperty("tail", "0"));
+  private static final double RECENCY = Double.parseDouble(System.getProperty("recency", "0"));
+  private static final int BLOCK = 1 << 12;
   private final int bufferLen;
-  private final int[][] training;
-  private final int[][] alt;
-  private final int[] oddsTraining;
-  private final int[] oddsAlt;
+  private final Map<File, PriceIngest> ingests = new LinkedHashMap<>();
+  private final Set<File> failed = new HashSet<>();
+  private volatile Snapshot snapshot;
 
   public Prices(int bufferLen) {
     this.bufferLen = bufferLen;
-    new File("./prices/training").mkdirs();
-    new File("./prices/alt").mkdirs();
-    for (File file : Objects.requireNonNull(
-        new File("./prices/training").listFiles((dir, name) -> !name.startsWith(".")))) {
-      for (File f : Objects.requireNonNull(file.listFiles((dir, name) -> !name.startsWith(".")))) {
-        process(Integer.parseInt(file.getName()), f);
-      }
+    TRAINING.mkdirs();
+    ALT.mkdirs();
+    for (File csv : csvs()) {
+      ingests.put(csv,
+          new PriceIngest(Integer.parseInt(csv.getParentFile().getName()), csv, TAIL > 0));
     }
-    for (File file : Objects.requireNonNull(
-        new File("./prices/alt").listFiles((dir, name) -> !name.startsWith(".")))) {
-      for (File f : Objects.requireNonNull(file.listFiles((dir, name) -> !name.startsWith(".")))) {
-        process(Integer.parseInt(file.getName()), f);
-      }
+    PriceIngest.processAll(new ArrayList<>(ingests.values()));
+    snapshot = new Snapshot(Datasets.load(dist(TRAINING), null, bufferLen),
+        Datasets.load(dist(ALT), null, bufferLen));
+
+    if (TAIL > 0) {
+      Thread tail = new Thread(() -> {
+        while (true) {
+          try {
+            Thread.sleep(TAIL);
+          } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+          }
+          tail();
+        }
+      }, "prices-tail");
+      tail.setDaemon(true);
+      tail.start();
     }
-    List<int[]> data = Stream.of(new File("./prices/training-dist").listFiles())
-        .filter(f -> !f.getName().startsWith(".")).map(Prices::load).collect(Collectors.toList());
-    training = data.toArray(new int[0][]);
-    data = Stream.of(new File("./prices/alt-dist").listFiles())
-        .filter(f -> !f.getName().startsWith(".")).map(Prices::load).collect(Collectors.toList());
-    alt = data.toArray(new int[0][]);
-
-    oddsTraining = initOdds(training);
-    oddsAlt = initOdds(alt);
   }
 
-  private static int[] initOdds(int[][] data) {
-    int[] odds = new int[100_000];
-    double k =
-        (double) odds.length / (double) Stream.of(data).map(a -> a.length).reduce(0, Integer::sum);
-    int pos = 0;
-    for (int i = 0; i < data.length; i++) {
-      int chances = (int) Math.rint((double) data[i].length * k);
-      if (chances < 1) {
-        throw new IllegalStateException();
-      }
-      for (int j = 0; j < chances && pos < odds.length; j++, pos++) {
-        odds[pos] = i;
+  Prices(int bufferLen, int[][] training, int[][] alt) {
+    this.bufferLen = bufferLen;
+    this.snapshot = new Snapshot(Datasets.wrap(training, bufferLen),
+        Datasets.wrap(alt, bufferLen));
+  }
+
+  private static File dist(File dir) {
+    return new File(dir.getPath() + "-dist");
+  }
+
+  private static List<File> csvs() {
+    List<File> csvs = new ArrayList<>();
+    for (File dir : List.of(TRAINING, ALT)) {
+      for (File file : Objects.requireNonNull(
+          dir.listFiles((d, name) -> !name.startsWith(".")))) {
+        csvs.addAll(List.of(Objects.requireNonNull(
+            file.listFiles((d, name) -> !name.startsWith(".")))));
       }
     }
-    return Arrays.copyOf(odds, pos);
+    return csvs;
   }
 
-  private static void process(int priceCol, File file) {
-    File dist = new File(file.getParentFile().getParentFile() + "-dist", file.getName());
-    if (!dist.exists()) {
-      List<Integer> prices = new ArrayList<>();
-      try (BufferedReader reader = new BufferedReader(
-          new InputStreamReader(new FileInputStream(file)))) {
-        reader.readLine();
-        double prevPrice = -1;
-        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
-          String[] tokens = line.split(",");
-          double priceTmp = Double.parseDouble(tokens[priceCol]);
-          if (Double.isFinite(priceTmp)) {
-            priceTmp = Math.rint(priceTmp * 100d);
-            if (priceTmp > Integer.MAX_VALUE || priceTmp < Integer.MIN_VALUE) {
-              throw new IllegalStateException(
-                  String.format("Price overflow '%s' (%f) in %s", tokens[priceCol], priceTmp,
-                      file.getAbsolutePath()));
-            }
-            if (priceTmp == 0) {
-              throw new IllegalStateException(
-                  String.format("Unusual price in %s: %s", file.getAbsolutePath(), line));
-            }
-            if (prevPrice != -1 && Math.abs(prevPrice - priceTmp) / priceTmp > .5) {
-              throw new IllegalStateException(
-                  String.format("Unusual price change in %s: %s", file.getAbsolutePath(), line));
-            }
-            prevPrice = priceTmp;
-            prices.add((int) priceTmp);
-          }
-        }
-        int[] data = new int[prices.size()];
-        for (int i = 0; i < prices.size(); i++) {
-          data[i] = prices.get(i);
-        }
-        dist.getParentFile().mkdirs();
-        try (ByteArrayOutputStream bytesOut = new ByteArrayOutputStream(); DataOutputStream dataOut = new DataOutputStream(
-            bytesOut); FileOutputStream fileOut = new FileOutputStream(dist, false)) {
-          for (int i = 0; i < data.length; i++) {
-            dataOut.writeInt(data[i]);
-          }
-          fileOut.write(bytesOut.toByteArray());
+  private static IntBuffer map(File file) {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size() - (channel.size() % Integer.BYTES);
+      return channel.map(MapMode.READ_ONLY, 0, size).asIntBuffer();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void tail() {
+    boolean changed = false;
+    for (File csv : csvs()) {
+      if (failed.contains(csv)) {
+        continue;
+      }
+      try {
+        PriceIngest ingest = ingests.get(csv);
+        if (ingest == null) {
+          ingest = new PriceIngest(Integer.parseInt(csv.getParentFile().getName()), csv,
+              true);
+          ingests.put(csv, ingest);
+          ingest.process();
+          changed = true;
+        } else if (csv.length() > ingest.consumed()) {
+          changed |= ingest.tail() > 0;
         }
-      } catch (IOException e) {
-        throw new RuntimeException(e);
+      } catch (IOException | RuntimeException e) {
+        failed.add(csv);
+        Log.info("Stopped tailing %s: %s", csv, e);
       }
     }
+    if (changed) {
+      Snapshot prev = snapshot;
+      snapshot = new Snapshot(Datasets.load(dist(TRAINING), prev.training(), bufferLen),
+          Datasets.load(dist(ALT), prev.alt(), bufferLen));
+    }
+  }
+
+  public Marker rand(boolean training) {
+    Datasets datasets = training ? snapshot.training() : snapshot.alt();
+    RandomGenerator rand = Rng.current();
+    int block = datasets.blocks().sample(rand);
+    int offset = datasets.blockOffset()[block] + rand.nextInt(datasets.blockLen()[block]);
+    int dataset = datasets.blockDataset()[block];
+    return new Marker(training, dataset, offset, datasets.name(dataset));
+  }
+
+  public int datasets(boolean training) {
+    Snapshot snapshot = this.snapshot;
+    return (training ? snapshot.training() : snapshot.alt()).data().length;
   }
 
-  private static int[] load(File file) {
-    List<Integer> data = new ArrayList<>();
-    try (FileInputStream fileIn = new FileInputStream(
-        file); ByteArrayInputStream bytesIn = new ByteArrayInputStream(
-        fileIn.readAllBytes()); DataInputStream dataIn = new DataInputStream(bytesIn)) {
-      while (true) {
-        data.add(dataIn.readInt());
+  public int offsets(boolean training, int dataset) {
+    Snapshot snapshot = this.snapshot;
+    IntBuffer data = (training ? snapshot.training() : snapshot.alt()).data()[dataset];
+    return Math.max(0, data.limit() - bufferLen - 1);
+  }
+
+  public String name(boolean training, int dataset) {
+    Snapshot snapshot = this.snapshot;
+    return (training ? snapshot.training() : snapshot.alt()).name(dataset);
+  }
+
+  public Marker resolve(Marker marker) {
+    Snapshot snapshot = this.snapshot;
+    Datasets datasets = marker.training() ? snapshot.training() : snapshot.alt();
+    int dataset = marker.dataset();
+    if (marker.name() != null && (dataset < 0 || dataset >= datasets.data().length
+        || !marker.name().equals(datasets.name(dataset)))) {
+      dataset = -1;
+      for (int i = 0; i < datasets.data().length && dataset < 0; i++) {
+        dataset = marker.name().equals(datasets.name(i)) ? i : -1;
       }
-    } catch (EOFException e) {
-      return data.stream().mapToInt(i -> i).toArray();
-    } catch (IOException e) {
-      throw new RuntimeException(e);
     }
+    if (dataset < 0 || dataset >= datasets.data().length || marker.offset() < 0
+        || marker.offset() >= datasets.data()[dataset].limit() - bufferLen - 1) {
+      return null;
+    }
+    return dataset == marker.dataset() ? marker
+        : new Marker(marker.training(), dataset, marker.offset(), marker.name());
   }
 
-  public Marker rand(boolean training) {
-    int[][] data = training ? this.training : this.alt;
-    int[] odds = training ? this.oddsTraining : this.oddsAlt;
-    int dataset = odds[rand.nextInt(odds.length)];
-    int offset = rand.nextInt(data[dataset].length - bufferLen - 1);
-    return new Marker(training, dataset, offset);
+  public IntBuffer getData(Marker marker) {
+    Snapshot snapshot = this.snapshot;
+    return (marker.training() ? snapshot.training() : snapshot.alt()).data()[marker.dataset()];
+  }
+
+  public record Marker(boolean training, int dataset, int offset, String name)
+      implements Serializable {
+
+    public Marker(boolean training, int dataset, int offset) {
+      this(training, dataset, offset, null);
+    }
   }
 
-  public int[] getData(Marker marker) {
-    int[][] data = marker.training() ? this.training : this.alt;
-    return data[marker.dataset()];
+  private record Snapshot(Datasets training, Datasets alt) {
+
   }
 
-  public record Marker(boolean training, int dataset, int offset) implements Serializable {
+  private record Datasets(List<File> files, IntBuffer[] data, int[] blockDataset,
+                          int[] blockOffset, int[] blockLen, AliasTable blocks) {
 
+    String name(int dataset) {
+      return dataset < files.size() ? files.get(dataset).getName() : "dataset" + dataset;
+    }
+
+    static Datasets wrap(int[][] data, int bufferLen) {
+      return create(List.of(), Stream.of(data).map(IntBuffer::wrap).toArray(IntBuffer[]::new),
+          bufferLen);
+    }
+
+    static Datasets load(File dir, Datasets prev, int bufferLen) {
+      List<File> files = new ArrayList<>(prev == null ? List.of() : prev.files());
+      Stream.of(Objects.requireNonNull(dir.listFiles()))
+          .filter(f -> !f.getName().startsWith(".") && !files.contains(f))
+          .sorted(Comparator.comparing(File::getName)).forEach(files::add);
+      IntBuffer[] data = new IntBuffer[files.size()];
+      for (int i = 0; i < data.length; i++) {
+        File file = files.get(i);
+        boolean same = prev != null && i < prev.data().length
+            && (long) prev.data()[i].limit() * Integer.BYTES == file.length();
+        data[i] = same ? prev.data()[i] : map(file);
+      }
+      return create(List.copyOf(files), data, bufferLen);
+    }
+
+    private static Datasets create(List<File> files, IntBuffer[] data, int bufferLen) {
+      List<int[]> blocks = new ArrayList<>();
+      for (int i = 0; i < data.length; i++) {
+        int offsets = data[i].limit() - bufferLen - 1;
+        if (offsets <= 0) {
+          Log.info("Skipping %s: %d prices, need more than %d.",
+              i < files.size() ? files.get(i) : "dataset " + i, data[i].limit(), bufferLen + 1);
+          continue;
+        }
+        int size = RECENCY > 0 ? BLOCK : offsets;
+        for (int end = offsets; end > 0; end -= size) {
+          int start = Math.max(0, end - size);
+          blocks.add(new int[]{i, start, end - start, offsets - end});
+        }
+      }
+      if (blocks.isEmpty()) {
+        throw new IllegalStateException("No price data longer than " + (bufferLen + 1));
+      }
+      int[] blockDataset = new int[blocks.size()];
+      int[] blockOffset = new int[blocks.size()];
+      int[] blockLen = new int[blocks.size()];
+      double[] weights = new double[blocks.size()];
+      for (int b = 0; b < weights.length; b++) {
+        int[] block = blocks.get(b);
+        blockDataset[b] = block[0];
+        blockOffset[b] = block[1];
+        blockLen[b] = block[2];
+        weights[b] = RECENCY > 0 ? block[2] * Math.pow(0.5, block[3] / RECENCY) : block[2];
+      }
+      return new Datasets(files, data, blockDataset, blockOffset, blockLen,
+          new AliasTable(weights));
+    }
   }
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+package com.machinepublishers.neuraltrader;
+
+import com.machinepublishers.neuraltrader.Prices.Marker;
+import java.util.Arrays;
+
+public class ProfitCache {
+
+  public static final int MISSING = Integer.MIN_VALUE;
+  private final Marker[] markers;
+  private final int[] incumbentProfits;
+  private final int[] candidateProfits;
+  private final int[][] baselineProfits;
+  private NeuralNet incumbent;
+  private int newest;
+
+  public ProfitCache(Prices prices, int size, int baselines) {
+    this.markers = new Marker[size];
+    this.incumbentProfits = new int[size];
+    this.candidateProfits = new int[size];
+    this.baselineProfits = new int[baselines][size];
+    for (int i = 0; i < size; i++) {
+      markers[i] = prices.rand(true);
+    }
+    Arrays.fill(incumbentProfits, MISSING);
+    for (int[] profits : baselineProfits) {
+      Arrays.fill(profits, MISSING);
+    }
+  }
+
+  public void refresh(Prices prices, int count) {
+    for (int i = 0; i < count; i++) {
+      newest = (newest + 1) % markers.length;
+      markers[newest] = prices.rand(true);
+      incumbentProfits[newest] = MISSING;
+      for (int[] profits : baselineProfits) {
+        profits[newest] = MISSING;
+      }
+    }
+  }
+
+  public int slot(int age) {
+    return Math.floorMod(newest - age, markers.length);
+  }
+
+  public Marker marker(int slot) {
+    return markers[slot];
+  }
+
+  public int incumbent(NeuralNet cur, int slot) {
+    if (incumbent != cur) {
+      incumbent = cur;
+      Arrays.fill(incumbentProfits, MISSING);
+    }
+    return incumbentProfits[slot];
+  }
+
+  public void incumbent(int slot, int profit) {
+    incumbentProfits[slot] = profit;
+  }
+
+  public int baseline(int baseline, int slot) {
+    return baselineProfits[baseline][slot];
+  }
+
+  public void baseline(int baseline, int slot, int profit) {
+    baselineProfits[baseline][slot] = profit;
+  }
+
+  public void candidate(int slot, int profit) {
+    candidateProfits[slot] = profit;
+  }
+
+  public void accept(NeuralNet next, int tries) {
+    incumbent = next;
+    Arrays.fill(incumbentProfits, MISSING);
+    for (int i = 0; i < tries; i++) {
+      int slot = slot(i);
+      incumbentProfits[slot] = candidateProfits[slot];
+    }
+  }
+
+  public int size() {
+    return markers.length;
+  }
+}
\ No newline at end of file
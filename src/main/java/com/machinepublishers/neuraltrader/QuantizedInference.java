@@ -0,0 +1,135 @@
+package com.machinepublishers.neuraltrader;
+
+public class QuantizedInference implements Inference {
+
+  private static final int MAX = 127;
+  private static final ThreadLocal<Buffers> batchBuffers = ThreadLocal.withInitial(Buffers::new);
+
+  static Quantized quantize(NeuralNet net) {
+    int layers = net.layers();
+    int len = net.len();
+    int inputLen = net.inputLen();
+    float[] weights = net.weights();
+    byte[] quantized = new byte[weights.length];
+    float[] scales = new float[layers];
+    for (int i = 0, row = 0; i < layers; i++) {
+      int size = (i == layers - 1 ? 2 : len) * (i == 0 ? inputLen : len);
+      float max = 0f;
+      for (int k = row; k < row + size; k++) {
+        max = Math.max(max, Math.abs(weights[k]));
+      }
+      scales[i] = max == 0f ? 1f : max / MAX;
+      for (int k = row; k < row + size; k++) {
+        quantized[k] = (byte) Math.round(weights[k] / scales[i]);
+      }
+      row += size;
+    }
+    return new Quantized(quantized, scales);
+  }
+
+  @Override
+  public Decision decide(NeuralNet net, Inputs inputs, int position) {
+    float[] buffer = processDecisions(net, inputs, position, 1);
+    return Inference.decision(buffer[0], buffer[1]);
+  }
+
+  @Override
+  public void decide(NeuralNet net, Inputs inputs, int from, int count, Decision[] decisions) {
+    float[] buffer = processDecisions(net, inputs, from, count);
+    for (int t = 0, len = net.len(); t < count; t++) {
+      decisions[t] = Inference.decision(buffer[t * len], buffer[t * len + 1]);
+    }
+  }
+
+  private static float[] processDecisions(NeuralNet net, Inputs inputs, int from, int count) {
+    int layers = net.layers();
+    int len = net.len();
+    int inputLen = net.inputLen();
+    Quantized quantized = net.prepared(Quantized.class, QuantizedInference::quantize);
+    byte[] weights = quantized.weights();
+    Buffers buffers = batchBuffers.get().ensure(count, len, inputLen);
+    float[] input = inputs.normalizedFloats(from, count);
+    for (int t = 0; t < count; t++) {
+      for (int k = 0, col = (from + t) * inputLen; k < inputLen; k++) {
+        buffers.activations[t * inputLen + k] = (byte) Math.round(input[col + k] * MAX);
+      }
+      buffers.scales[t] = 1f / MAX;
+    }
+    for (int i = 0, row = 0; i < layers; i++) {
+      int rows = i == layers - 1 ? 2 : len;
+      int cols = i == 0 ? inputLen : len;
+      byte[] in = buffers.activations;
+      float[] out = buffers.outputs;
+      for (int j = 0; j < rows; j++, row += cols) {
+        int t = 0;
+        for (; t + 3 < count; t += 4) {
+          int col = t * cols;
+          int sum0 = 0;
+          int sum1 = 0;
+          int sum2 = 0;
+          int sum3 = 0;
+          for (int k = 0; k < cols; k++) {
+            int weight = weights[row + k];
+            sum0 += weight * in[col + k];
+            sum1 += weight * in[col + cols + k];
+            sum2 += weight * in[col + 2 * cols + k];
+            sum3 += weight * in[col + 3 * cols + k];
+          }
+          out[t * len + j] = activate(sum0, quantized.scales()[i], buffers.scales[t]);
+          out[(t + 1) * len + j] = activate(sum1, quantized.scales()[i], buffers.scales[t + 1]);
+          out[(t + 2) * len + j] = activate(sum2, quantized.scales()[i], buffers.scales[t + 2]);
+          out[(t + 3) * len + j] = activate(sum3, quantized.scales()[i], buffers.scales[t + 3]);
+        }
+        for (; t < count; t++) {
+          int sum = 0;
+          for (int k = 0, col = t * cols; k < cols; k++) {
+            sum += weights[row + k] * in[col + k];
+          }
+          out[t * len + j] = activate(sum, quantized.scales()[i], buffers.scales[t]);
+        }
+      }
+      if (i < layers - 1) {
+        for (int t = 0; t < count; t++) {
+          float max = 0f;
+          for (int j = 0; j < rows; j++) {
+            max = Math.max(max, out[t * len + j]);
+          }
+          float scale = max == 0f ? 1f : max / MAX;
+          for (int j = 0; j < rows; j++) {
+            in[t * len + j] = (byte) Math.round(out[t * len + j] / scale);
+          }
+          buffers.scales[t] = scale;
+        }
+      }
+    }
+    return buffers.outputs;
+  }
+
+  private static float activate(int sum, float weightScale, float inputScale) {
+    return sum > 0 ? sum * weightScale * inputScale : 0f;
+  }
+
+  record Quantized(byte[] weights, float[] scales) {
+
+  }
+
+  private static class Buffers {
+
+    private byte[] activations = new byte[0];
+    private float[] outputs = new float[0];
+    private float[] scales = new float[0];
+
+    Buffers ensure(int count, int len, int inputLen) {
+      if (activations.length < count * Math.max(len, inputLen)) {
+        activations = new byte[count * Math.max(len, inputLen)];
+      }
+      if (outputs.length < count * len) {
+        outputs = new float[count * len];
+      }
+      if (scales.length < count) {
+        scales = new float[count];
+      }
+      return this;
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.machinepublishers.neuraltrader;
+
+import java.security.SecureRandom;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+public class Rng {
+
+  private static final long SEED = System.getProperty("seed") == null
+      ? new SecureRandom().nextLong() : Long.parseLong(System.getProperty("seed"));
+  private static final SplittableRandom root = new SplittableRandom(mix(SEED));
+  private static final ThreadLocal<RandomGenerator> current = ThreadLocal.withInitial(
+      Rng::split);
+
+  public static long seed() {
+    return SEED;
+  }
+
+  public static RandomGenerator current() {
+    return current.get();
+  }
+
+  public static RandomGenerator stream(String key) {
+    long hash = SEED;
+    for (int i = 0; i < key.length(); i++) {
+      hash = mix(hash + key.charAt(i));
+    }
+    return new SplittableRandom(mix(hash));
+  }
+
+  private static RandomGenerator split() {
+    synchronized (root) {
+      return root.split();
+    }
+  }
+
+  public static void bind(RandomGenerator stream) {
+    current.set(stream);
+  }
+
+  private static long mix(long z) {
+    z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+    z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    return z ^ (z >>> 33);
+  }
+}
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.machinepublishers.neuraltrader;
+
+public class RollingProfit {
+
+  private final int[] history;
+  private final int recent;
+  private final int day;
+  private int cur = -1;
+  private long total;
+  private long historyTotal;
+  private long recentTotal;
+  private long dayTotal;
+
+  public RollingProfit(int history, int recent, int day) {
+    if (recent > history || day > history) {
+      throw new IllegalArgumentException("Windows must fit in the history");
+    }
+    this.history = new int[history];
+    this.recent = recent;
+    this.day = day;
+  }
+
+  public void add(int profit) {
+    cur = cur + 1 == history.length ? 0 : cur + 1;
+    int prev = history[cur];
+    recentTotal += profit - history[Math.floorMod(cur - recent, history.length)];
+    historyTotal += profit - prev;
+    history[cur] = profit;
+    total += profit;
+    if (cur % day == 0) {
+      dayTotal = 0;
+      for (int i = 1; i <= day; i++) {
+        dayTotal += history[Math.floorMod(cur - i, history.length)];
+      }
+    } else if (history.length - cur % day <= day) {
+      dayTotal += profit - prev;
+    }
+  }
+
+  public int last() {
+    return cur < 0 ? 0 : history[cur];
+  }
+
+  public long total() {
+    return total;
+  }
+
+  public long history() {
+    return historyTotal;
+  }
+
+  public long recent() {
+    return recentTotal;
+  }
+
+  public long day() {
+    return dayTotal;
+  }
+}
\ No newline at end of file
@@ -0,0 +1,62 @@
+package com.machinepublishers.neuraltrader;
+
+public class ScalarInference implements Inference {
+
+  private static final ThreadLocal<double[][]> batchBuffers = ThreadLocal.withInitial(
+      () -> new double[][]{new double[0], new double[0]});
+
+  @Override
+  public Decision decide(NeuralNet net, Inputs inputs, int position) {
+    double[] buffer = processDecisions(net, inputs, position, 1);
+    return Inference.decision(buffer[0], buffer[1]);
+  }
+
+  @Override
+  public void decide(NeuralNet net, Inputs inputs, int from, int count, Decision[] decisions) {
+    double[] buffer = processDecisions(net, inputs, from, count);
+    for (int t = 0, len = net.len(); t < count; t++) {
+      decisions[t] = Inference.decision(buffer[t * len], buffer[t * len + 1]);
+    }
+  }
+
+  static double[] processDecisions(NeuralNet net, Inputs inputs, int from, int count) {
+    int layers = net.layers();
+    int len = net.len();
+    int inputLen = net.inputLen();
+    float[] weights = net.weights();
+    double[] input = inputs.shifted(from, count);
+    double[][] buffers = batchBuffers.get();
+    if (buffers[0].length < count * len) {
+      buffers[0] = new double[count * len];
+      buffers[1] = new double[count * len];
+    }
+    double[] prev = buffers[0];
+    double[] next = buffers[1];
+    for (int i = 0, row = 0; i < layers; i++) {
+      int rows = i == layers - 1 ? 2 : len;
+      int cols = i == 0 ? inputLen : len;
+      double[] in = i == 0 ? input : prev;
+      int start = i == 0 ? from * inputLen : 0;
+      for (int j = 0; j < rows; j++, row += cols) {
+        for (int t = 0; t < count; t++) {
+          double sum = 0d;
+          if (i == 0) {
+            double scale = inputs.scale(from + t);
+            for (int k = 0, col = start + t * cols; k < cols; k++) {
+              sum += (double) weights[row + k] * in[k + col] / scale;
+            }
+          } else {
+            for (int k = 0, col = start + t * cols; k < cols; k++) {
+              sum += (double) weights[row + k] * in[k + col];
+            }
+          }
+          next[t * len + j] = sum > 0d ? sum : 0d;
+        }
+      }
+      double[] tmp = prev;
+      prev = next;
+      next = tmp;
+    }
+    return prev;
+  }
+}
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.machinepublishers.neuraltrader;
 import com.machinepublishers.neuraltrader.Prices.Marker;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
+import java.util.List;
 
 public interface Server extends Remote {
 
@@ -10,5 +11,17 @@ public interface Server extends Remote {
 
   NeuralNet download(String key, int indexFrom, int indexTo) throws RemoteException;
 
+  void uploadAll(String key, List<NeuralNet> nets) throws RemoteException;
+
+  List<NeuralNet> downloadMany(String key, int[] indexFrom, int[] indexTo) throws RemoteException;
+
   Marker randPriceMarker(String key, boolean training, long sync) throws RemoteException;
+
+  /**
+   * Returns the markers scheduled for {@code sync} and the {@code count - 1} ticks after it.
+   * Ticks are the coordinator's {@code -Dinterval}, so clients must run with the same interval
+   * and pass a {@code sync} that is a multiple of it; other values are rejected.
+   */
+  List<Marker> randPriceMarkers(String key, boolean training, long sync, int count)
+      throws RemoteException;
 }
\ No newline at end of file
@@ -1,53 +1,162 @@
 package com.machinepublishers.neuraltrader;
 
 import com.machinepublishers.neuraltrader.Prices.Marker;
+import java.io.File;
 import java.rmi.RemoteException;
-import java.security.SecureRandom;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Random;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Stream;
 
 public class ServerImpl implements Server {
 
-  private static final Random rand = new SecureRandom();
+  private static final int EPOCHS = 64;
   private final Prices prices;
-  private final Map<Long, Marker> markers = new HashMap<>();
-  private Marker marker1 = null;
-  private Marker marker2 = null;
+  private final long interval;
+  private final AtomicReferenceArray<Scheduled> training = new AtomicReferenceArray<>(EPOCHS);
+  private final AtomicReferenceArray<Scheduled> alt = new AtomicReferenceArray<>(EPOCHS);
+  private volatile NeuralNet[] registry = new NeuralNet[0];
 
-  public ServerImpl(Prices prices) {
+  public ServerImpl(Prices prices, long interval) {
     this.prices = prices;
+    this.interval = interval;
+    long start = System.currentTimeMillis();
+    int[] ids = Stream.of(Objects.requireNonNull(new File("./data").listFiles()))
+        .map(File::getName).filter(name -> name.matches("n\\d+"))
+        .mapToInt(name -> Integer.parseInt(name.substring(1))).toArray();
+    NeuralNet[] loaded = Arrays.stream(ids).parallel().mapToObj(id -> {
+      try {
+        return NeuralNet.create(id, id);
+      } catch (RuntimeException e) {
+        Log.info("Skipping n%d: %s", id, e);
+        return null;
+      }
+    }).toArray(NeuralNet[]::new);
+    for (NeuralNet net : loaded) {
+      if (net != null) {
+        put(net);
+      }
+    }
+    Log.info("Loaded %d nets in %d ms.", Stream.of(registry).filter(Objects::nonNull).count(),
+        System.currentTimeMillis() - start);
+  }
+
+  private void put(NeuralNet net) {
+    putAll(List.of(net));
+  }
+
+  private synchronized void putAll(List<NeuralNet> nets) {
+    int len = registry.length;
+    for (NeuralNet net : nets) {
+      len = Math.max(len, net.id() + 1);
+    }
+    NeuralNet[] next = Arrays.copyOf(registry, len);
+    for (NeuralNet net : nets) {
+      next[net.id()] = net;
+    }
+    registry = next;
+  }
+
+  private NeuralNet get(int id) {
+    NeuralNet[] registry = this.registry;
+    NeuralNet net = id < registry.length ? registry[id] : null;
+    return net == null ? putIfAbsent(NeuralNet.create(id, id)) : net;
+  }
+
+  private synchronized NeuralNet putIfAbsent(NeuralNet net) {
+    NeuralNet[] registry = this.registry;
+    NeuralNet cur = net.id() < registry.length ? registry[net.id()] : null;
+    if (cur != null) {
+      return cur;
+    }
+    put(net);
+    return net;
   }
 
   @Override
   public void upload(String key, NeuralNet cur) throws RemoteException {
     if (Main.getKey().equals(key)) {
+      put(cur);
       cur.save();
     }
   }
 
   @Override
   public NeuralNet download(String key, int indexFrom, int indexTo) throws RemoteException {
-    return Main.getKey().equals(key) ? NeuralNet.create(indexFrom, indexTo) : null;
+    return Main.getKey().equals(key) ? get(indexFrom).clone(indexTo, false) : null;
   }
 
   @Override
-  public Marker randPriceMarker(String key, boolean training, long sync) throws RemoteException {
+  public void uploadAll(String key, List<NeuralNet> nets) throws RemoteException {
     if (Main.getKey().equals(key)) {
-      synchronized (ServerImpl.class) {
-        if (markers.containsKey(sync)) {
-          return markers.get(sync);
-        }
-        Marker toRemove = marker2;
-        marker2 = marker1;
-        marker1 = prices.rand(training);
-        if (toRemove != null) {
-          markers.remove(toRemove);
-        }
-        markers.put(sync, marker1);
-        return marker1;
+      putAll(nets);
+      NeuralNet.saveAll(nets);
+    }
+  }
+
+  @Override
+  public List<NeuralNet> downloadMany(String key, int[] indexFrom, int[] indexTo)
+      throws RemoteException {
+    if (!Main.getKey().equals(key)) {
+      return null;
+    }
+    List<NeuralNet> nets = new ArrayList<>();
+    for (int i = 0; i < indexFrom.length; i++) {
+      nets.add(get(indexFrom[i]).clone(indexTo[i], false));
+    }
+    return nets;
+  }
+
+  @Override
+  public Marker randPriceMarker(String key, boolean training, long sync) throws RemoteException {
+    return Main.getKey().equals(key) ? marker(training, epoch(sync)) : null;
+  }
+
+  @Override
+  public List<Marker> randPriceMarkers(String key, boolean training, long sync, int count)
+      throws RemoteException {
+    if (!Main.getKey().equals(key)) {
+      return null;
+    }
+    long epoch = epoch(sync);
+    List<Marker> markers = new ArrayList<>();
+    for (int i = 0; i < Math.min(count, EPOCHS / 2); i++) {
+      markers.add(marker(training, epoch + i));
+    }
+    return markers;
+  }
+
+  private long epoch(long sync) {
+    if (interval > 0 && Math.floorMod(sync, interval) != 0) {
+      throw new IllegalArgumentException(String.format(
+          "Sync %d is not on a tick of the coordinator interval %d; use the same -Dinterval",
+          sync, interval));
+    }
+    return interval > 0 ? Math.floorDiv(sync, interval) : sync;
+  }
+
+  private Marker marker(boolean training, long epoch) {
+    AtomicReferenceArray<Scheduled> schedule = training ? this.training : alt;
+    int slot = (int) Math.floorMod(epoch, (long) EPOCHS);
+    Scheduled next = null;
+    while (true) {
+      Scheduled cur = schedule.get(slot);
+      if (cur != null && cur.epoch() == epoch) {
+        return cur.marker();
+      }
+      if (cur != null && cur.epoch() > epoch) {
+        return prices.rand(training);
+      }
+      next = next == null ? new Scheduled(epoch, prices.rand(training)) : next;
+      if (schedule.compareAndSet(slot, cur, next)) {
+        return next.marker();
       }
     }
-    return null;
+  }
+
+  private record Scheduled(long epoch, Marker marker) {
+
   }
 }
\ No newline at end of file
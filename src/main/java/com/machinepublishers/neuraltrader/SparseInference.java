@@ -0,0 +1,147 @@
+package com.machinepublishers.neuraltrader;
+
+import java.util.Arrays;
+
+public class SparseInference implements Inference {
+
+  private static final double DENSITY = Double.parseDouble(
+      System.getProperty("sparseDensity", "0.6"));
+  private static final ThreadLocal<double[][]> batchBuffers = ThreadLocal.withInitial(
+      () -> new double[][]{new double[0], new double[0]});
+  private final double density;
+
+  public SparseInference() {
+    this(DENSITY);
+  }
+
+  public SparseInference(double density) {
+    this.density = density;
+  }
+
+  static Sparse compress(NeuralNet net) {
+    int layers = net.layers();
+    int len = net.len();
+    int inputLen = net.inputLen();
+    float[] weights = net.weights();
+    int[][] starts = new int[layers][];
+    int[][] rows = new int[layers][];
+    double[][] values = new double[layers][];
+    double[] densities = new double[layers];
+    for (int i = 0, row = 0; i < layers; i++) {
+      int layerRows = i == layers - 1 ? 2 : len;
+      int cols = i == 0 ? inputLen : len;
+      int nonZero = 0;
+      for (int k = row; k < row + layerRows * cols; k++) {
+        nonZero += weights[k] == 0f ? 0 : 1;
+      }
+      starts[i] = new int[cols + 1];
+      rows[i] = new int[nonZero];
+      values[i] = new double[nonZero];
+      densities[i] = (double) nonZero / (layerRows * cols);
+      for (int k = 0, p = 0; k < cols; k++) {
+        starts[i][k] = p;
+        for (int j = 0; j < layerRows; j++) {
+          float weight = weights[row + j * cols + k];
+          if (weight != 0f) {
+            rows[i][p] = j;
+            values[i][p++] = weight;
+          }
+        }
+      }
+      starts[i][cols] = nonZero;
+      row += layerRows * cols;
+    }
+    return new Sparse(starts, rows, values, densities);
+  }
+
+  @Override
+  public Decision decide(NeuralNet net, Inputs inputs, int position) {
+    double[] buffer = processDecisions(net, inputs, position, 1);
+    return Inference.decision(buffer[0], buffer[1]);
+  }
+
+  @Override
+  public void decide(NeuralNet net, Inputs inputs, int from, int count, Decision[] decisions) {
+    double[] buffer = processDecisions(net, inputs, from, count);
+    for (int t = 0, len = net.len(); t < count; t++) {
+      decisions[t] = Inference.decision(buffer[t * len], buffer[t * len + 1]);
+    }
+  }
+
+  private double[] processDecisions(NeuralNet net, Inputs inputs, int from, int count) {
+    int layers = net.layers();
+    int len = net.len();
+    int inputLen = net.inputLen();
+    float[] weights = net.weights();
+    Sparse sparse = net.prepared(Sparse.class, SparseInference::compress);
+    double[] input = inputs.shifted(from, count);
+    double[][] buffers = batchBuffers.get();
+    if (buffers[0].length < count * len) {
+      buffers[0] = new double[count * len];
+      buffers[1] = new double[count * len];
+    }
+    double[] prev = buffers[0];
+    double[] next = buffers[1];
+    for (int i = 0, row = 0; i < layers; i++) {
+      int rows = i == layers - 1 ? 2 : len;
+      int cols = i == 0 ? inputLen : len;
+      double[] in = i == 0 ? input : prev;
+      int start = i == 0 ? from * inputLen : 0;
+      int active = 0;
+      for (int k = start; k < start + count * cols; k++) {
+        active += in[k] == 0d ? 0 : 1;
+      }
+      if (sparse.densities()[i] * active < density * count * cols) {
+        int[] starts = sparse.starts()[i];
+        int[] indices = sparse.rows()[i];
+        double[] values = sparse.values()[i];
+        for (int t = 0; t < count; t++) {
+          int out = t * len;
+          Arrays.fill(next, out, out + rows, 0d);
+          double scale = i == 0 ? inputs.scale(from + t) : 0d;
+          for (int k = 0, col = start + t * cols; k < cols; k++) {
+            double activation = in[k + col];
+            if (activation != 0d && i == 0) {
+              for (int p = starts[k]; p < starts[k + 1]; p++) {
+                next[out + indices[p]] += values[p] * activation / scale;
+              }
+            } else if (activation != 0d) {
+              for (int p = starts[k]; p < starts[k + 1]; p++) {
+                next[out + indices[p]] += values[p] * activation;
+              }
+            }
+          }
+          for (int j = out; j < out + rows; j++) {
+            next[j] = next[j] > 0d ? next[j] : 0d;
+          }
+        }
+        row += rows * cols;
+      } else {
+        for (int j = 0; j < rows; j++, row += cols) {
+          for (int t = 0; t < count; t++) {
+            double sum = 0d;
+            if (i == 0) {
+              double scale = inputs.scale(from + t);
+              for (int k = 0, col = start + t * cols; k < cols; k++) {
+                sum += (double) weights[row + k] * in[k + col] / scale;
+              }
+            } else {
+              for (int k = 0, col = start + t * cols; k < cols; k++) {
+                sum += (double) weights[row + k] * in[k + col];
+              }
+            }
+            next[t * len + j] = sum > 0d ? sum : 0d;
+          }
+        }
+      }
+      double[] tmp = prev;
+      prev = next;
+      next = tmp;
+    }
+    return prev;
+  }
+
+  record Sparse(int[][] starts, int[][] rows, double[][] values, double[] densities) {
+
+  }
+}
\ No newline at end of file
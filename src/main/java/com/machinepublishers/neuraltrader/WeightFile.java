@@ -0,0 +1,128 @@
+package com.machinepublishers.neuraltrader;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+public class WeightFile {
+
+  public static final int MAGIC = 0x4E4E434A;
+  public static final int VERSION = 1;
+  private static final int HEADER = 32;
+
+  public static ByteBuffer encode(int layers, int len, int inputLen, long generation,
+      float[] weights) {
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER + weights.length * Float.BYTES + Integer.BYTES)
+        .order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(MAGIC).putInt(VERSION);
+    buffer.putInt(layers).putInt(len).putInt(inputLen).putLong(generation);
+    buffer.putInt(weights.length);
+    buffer.asFloatBuffer().put(weights);
+    buffer.position(HEADER + weights.length * Float.BYTES);
+    CRC32 crc = new CRC32();
+    crc.update(buffer.duplicate().flip());
+    buffer.putInt((int) crc.getValue());
+    return buffer.flip();
+  }
+
+  public static boolean isBinary(ByteBuffer buffer) {
+    return buffer.limit() >= Integer.BYTES
+        && buffer.order(ByteOrder.LITTLE_ENDIAN).getInt(0) == MAGIC;
+  }
+
+  public static Contents decode(File file, ByteBuffer buffer) {
+    return isBinary(buffer) ? decodeBinary(file, buffer) : decodeText(buffer);
+  }
+
+  private static Contents decodeBinary(File file, ByteBuffer buffer) {
+    buffer.order(ByteOrder.LITTLE_ENDIAN).position(Integer.BYTES);
+    int version = buffer.getInt();
+    if (version != VERSION) {
+      throw new IllegalStateException(
+          String.format("Unsupported version %d in %s", version, file.getAbsolutePath()));
+    }
+    int layers = buffer.getInt();
+    int len = buffer.getInt();
+    int inputLen = buffer.getInt();
+    long generation = buffer.getLong();
+    int count = buffer.getInt();
+    int end = HEADER + count * Float.BYTES;
+    if (count < 0 || buffer.limit() != end + Integer.BYTES) {
+      throw new IllegalStateException("Truncated " + file.getAbsolutePath());
+    }
+    CRC32 crc = new CRC32();
+    crc.update(buffer.duplicate().position(0).limit(end));
+    if ((int) crc.getValue() != buffer.getInt(end)) {
+      throw new IllegalStateException("Checksum mismatch " + file.getAbsolutePath());
+    }
+    float[] weights = new float[count];
+    buffer.position(HEADER).limit(end);
+    buffer.asFloatBuffer().get(weights);
+    return new Contents(layers, len, inputLen, generation, weights, false);
+  }
+
+  private static Contents decodeText(ByteBuffer buffer) {
+    String[] lines = StandardCharsets.UTF_8.decode(buffer).toString().split("\n");
+
+    String[] dimensions = lines[0].split("/");
+    int layers = Integer.parseInt(dimensions[0]);
+    int len = Integer.parseInt(dimensions[1]);
+    int inputLen = Integer.parseInt(dimensions[2]);
+    long generation = Long.parseLong(dimensions[3]);
+
+    String[] weightTokens = lines[1].split(",");
+    float[] weights = new float[weightTokens.length];
+    for (int i = 0; i < weights.length; i++) {
+      weights[i] = Float.parseFloat(weightTokens[i]);
+    }
+    return new Contents(layers, len, inputLen, generation, weights, true);
+  }
+
+  public static void main(String[] args) {
+    boolean text = args.length > 0 && "--text".equals(args[0]);
+    List<File> files = Stream.of(args).skip(text ? 1 : 0).map(File::new)
+        .collect(Collectors.toList());
+    if (files.isEmpty()) {
+      files = List.of(Objects.requireNonNull(
+          new File("./data").listFiles((dir, name) -> !name.startsWith("."))));
+    }
+    for (File file : files) {
+      Contents contents = LockedFile.read(file, buffer -> decode(file, buffer));
+      Checkpoints.save(file, text
+          ? ByteBuffer.wrap(contents.toText().getBytes(StandardCharsets.UTF_8))
+          : contents.toBinary());
+    }
+    if (!Checkpoints.flush(60_000)) {
+      throw new IllegalStateException("Timed out writing converted nets");
+    }
+    Log.info("Converted %d files to %s.", files.size(), text ? "text" : "binary");
+  }
+
+  public record Contents(int layers, int len, int inputLen, long generation, float[] weights,
+                         boolean legacy) {
+
+    public ByteBuffer toBinary() {
+      return encode(layers, len, inputLen, generation, weights);
+    }
+
+    public String toText() {
+      StringBuilder builder = new StringBuilder();
+      builder.append(layers).append("/");
+      builder.append(len).append("/");
+      builder.append(inputLen).append("/");
+      builder.append(generation).append("/");
+      builder.append("\n");
+
+      for (int i = 0; i < weights.length; i++) {
+        builder.append(weights[i]).append(",");
+      }
+      return builder.toString();
+    }
+  }
+}
\ No newline at end of file
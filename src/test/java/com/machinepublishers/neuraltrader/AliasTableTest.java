@@ -0,0 +1,59 @@
+package com.machinepublishers.neuraltrader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class AliasTableTest {
+
+  private static void checkFrequencies(double[] weights, int samples) {
+    AliasTable table = new AliasTable(weights);
+    assertEquals(weights.length, table.size());
+    SplittableRandom rand = new SplittableRandom(weights.length);
+    long[] counts = new long[weights.length];
+    for (int i = 0; i < samples; i++) {
+      ++counts[table.sample(rand)];
+    }
+    double total = 0;
+    for (double weight : weights) {
+      total += weight;
+    }
+    for (int i = 0; i < weights.length; i++) {
+      double p = weights[i] / total;
+      if (p == 0) {
+        assertEquals(0, counts[i], "zero weight sampled at " + i);
+        continue;
+      }
+      double sd = Math.sqrt(samples * p * (1 - p));
+      assertTrue(Math.abs(counts[i] - samples * p) < 5 * sd + 1,
+          String.format("index %d: %d samples, expected %.0f", i, counts[i], samples * p));
+    }
+  }
+
+  @Test
+  void samplesInProportionToWeights() {
+    checkFrequencies(new double[]{1}, 1_000);
+    checkFrequencies(new double[]{1, 0, 3, 6}, 400_000);
+    checkFrequencies(new double[]{0, 0, 5, 0}, 10_000);
+    checkFrequencies(new double[]{1e-9, 1, 1e9}, 400_000);
+    double[] weights = new double[1_000];
+    SplittableRandom rand = new SplittableRandom(9);
+    for (int i = 0; i < weights.length; i++) {
+      weights[i] = rand.nextInt(4) == 0 ? 0 : rand.nextDouble(1, 100);
+    }
+    checkFrequencies(weights, 2_000_000);
+  }
+
+  @Test
+  void rejectsInvalidWeights() {
+    assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[0]));
+    assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[]{0, 0}));
+    assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[]{1, -1}));
+    assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[]{Double.NaN}));
+    assertThrows(IllegalArgumentException.class,
+        () -> new AliasTable(new double[]{1, Double.POSITIVE_INFINITY}));
+  }
+}
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.machinepublishers.neuraltrader;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import com.machinepublishers.neuraltrader.Backtest.Aggregate;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class BacktestTest {
+
+  private static Aggregate aggregate(int[] profits, int from, int to) {
+    Aggregate aggregate = Aggregate.empty(1)[0];
+    for (int i = from; i < to; i++) {
+      aggregate.add(profits[i]);
+    }
+    return aggregate;
+  }
+
+  private static long[] fields(Aggregate aggregate) {
+    return new long[]{aggregate.count, aggregate.trades, aggregate.hits, aggregate.total,
+        aggregate.peak, aggregate.trough, aggregate.drawdown};
+  }
+
+  @Test
+  void thenIsAssociativeAndMatchesSequentialAdds() {
+    SplittableRandom rand = new SplittableRandom(5);
+    for (int trial = 0; trial < 500; trial++) {
+      int[] profits = new int[rand.nextInt(0, 60)];
+      for (int i = 0; i < profits.length; i++) {
+        profits[i] = rand.nextInt(4) == 0 ? 0 : rand.nextInt(-1_000, 1_000);
+      }
+      int a = rand.nextInt(profits.length + 1);
+      int b = rand.nextInt(a, profits.length + 1);
+      long[] expected = fields(aggregate(profits, 0, profits.length));
+      long[] left = fields(aggregate(profits, 0, a).then(aggregate(profits, a, b))
+          .then(aggregate(profits, b, profits.length)));
+      long[] right = fields(aggregate(profits, 0, a)
+          .then(aggregate(profits, a, b).then(aggregate(profits, b, profits.length))));
+      assertArrayEquals(expected, left, "left fold, trial " + trial);
+      assertArrayEquals(expected, right, "right fold, trial " + trial);
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,68 @@
+package com.machinepublishers.neuraltrader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CheckpointsTest {
+
+  @TempDir
+  Path dir;
+
+  private static ByteBuffer bytes(String text) {
+    return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String read(File file) throws IOException {
+    return Files.readString(file.toPath());
+  }
+
+  @Test
+  void latestSaveWinsAndIsVisibleBeforeItIsWritten() throws IOException {
+    File file = dir.resolve("n1").toFile();
+    for (int i = 0; i < 100; i++) {
+      Checkpoints.save(file, bytes("v" + i));
+    }
+    ByteBuffer pending = Checkpoints.pending(file);
+    assertTrue(pending == null || StandardCharsets.UTF_8.decode(pending).toString().equals("v99"));
+    assertTrue(Checkpoints.flush(10_000));
+    assertEquals("v99", read(file));
+    assertNull(Checkpoints.pending(file));
+    assertEquals(1, dir.toFile().list().length);
+  }
+
+  @Test
+  void failedFilesAreRetriedWithoutDroppingTheRestOfTheBatch() throws IOException {
+    Path blocked = dir.resolve("blocked");
+    Files.writeString(blocked, "not a directory");
+    File bad = blocked.resolve("n2").toFile();
+    File good = dir.resolve("n3").toFile();
+    Map<File, ByteBuffer> batch = new LinkedHashMap<>();
+    batch.put(bad, bytes("old"));
+    batch.put(good, bytes("good"));
+    Checkpoints.saveAll(batch);
+    assertFalse(Checkpoints.flush(1_500));
+    assertEquals("good", read(good));
+    assertNotNull(Checkpoints.pending(bad));
+
+    Checkpoints.save(bad, bytes("new"));
+    Files.delete(blocked);
+    Files.createDirectory(blocked);
+    assertTrue(Checkpoints.flush(10_000));
+    assertEquals("new", read(bad));
+    assertNull(Checkpoints.pending(bad));
+  }
+}
\ No newline at end of file
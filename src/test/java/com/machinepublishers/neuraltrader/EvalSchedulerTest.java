@@ -0,0 +1,61 @@
+package com.machinepublishers.neuraltrader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class EvalSchedulerTest {
+
+  @Test
+  void errorInEvalRequeuesTheIndex() throws InterruptedException {
+    AtomicInteger calls = new AtomicInteger();
+    CountDownLatch retried = new CountDownLatch(1);
+    EvalScheduler scheduler = new EvalScheduler(2, new String[]{"n1"}, index -> {
+      if (calls.getAndIncrement() == 0) {
+        throw new AssertionError("expected by test");
+      }
+      retried.countDown();
+    });
+    PrintStream err = System.err;
+    System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+    try {
+      scheduler.start();
+      assertTrue(retried.await(5, TimeUnit.SECONDS), "index was not requeued");
+    } finally {
+      System.setErr(err);
+    }
+    assertTrue(scheduler.shutdown(5_000), "running count was not released");
+  }
+
+  @Test
+  void singleWorkerSurvivesErrors() throws InterruptedException {
+    AtomicInteger calls = new AtomicInteger();
+    CountDownLatch evaluated = new CountDownLatch(10);
+    EvalScheduler scheduler = new EvalScheduler(1, new String[]{"n1", "n2"}, index -> {
+      int call = calls.getAndIncrement();
+      if (call == 0) {
+        throw new StackOverflowError("expected by test");
+      }
+      if (call == 1) {
+        throw new AssertionError("expected by test");
+      }
+      evaluated.countDown();
+    });
+    PrintStream err = System.err;
+    System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+    try {
+      scheduler.start();
+      assertTrue(evaluated.await(5, TimeUnit.SECONDS), "worker stopped after an error");
+    } finally {
+      System.setErr(err);
+    }
+    assertEquals(2, scheduler.errors());
+    assertTrue(scheduler.shutdown(5_000));
+  }
+}
\ No newline at end of file
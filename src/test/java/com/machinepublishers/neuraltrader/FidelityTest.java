@@ -0,0 +1,40 @@
+package com.machinepublishers.neuraltrader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class FidelityTest {
+
+  private static final int WINDOWS = 200;
+
+  private static double agreement(Inference candidate) {
+    Rng.bind(new SplittableRandom(1));
+    NeuralNet[] nets = new NeuralNet[4];
+    for (int i = 0; i < nets.length; i++) {
+      nets[i] = Fixtures.net(i);
+    }
+    return Fidelity.agreement(new ScalarInference(), candidate, nets, Fixtures.prices(), WINDOWS);
+  }
+
+  @Test
+  void vectorMatchesScalar() {
+    Inference vector = Inference.create("vector");
+    assertEquals("VectorInference", vector.getClass().getSimpleName());
+    double agreement = agreement(vector);
+    assertTrue(agreement >= 0.999, "vector agreement " + agreement);
+  }
+
+  @Test
+  void int8StaysCloseToScalar() {
+    double agreement = agreement(Inference.create("int8"));
+    assertTrue(agreement >= 0.98, "int8 agreement " + agreement);
+  }
+
+  @Test
+  void scalarMatchesItself() {
+    assertEquals(1d, agreement(new ScalarInference()));
+  }
+}
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.machinepublishers.neuraltrader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.IntBuffer;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class InputsTest {
+
+  private static int[] walk(long seed, int length, int step) {
+    SplittableRandom rand = new SplittableRandom(seed);
+    int[] data = new int[length];
+    int price = 1_000;
+    for (int i = 0; i < length; i++) {
+      price = Math.max(1, price + rand.nextInt(-step, step + 1));
+      data[i] = price;
+    }
+    return data;
+  }
+
+  @Test
+  void shiftedMatchesBruteForceMinAndMax() {
+    int inputLen = 37;
+    int positions = 25;
+    Inputs inputs = new Inputs(inputLen, positions);
+    for (int seed = 0; seed < 20; seed++) {
+      int[] data = walk(seed, 400, seed % 3 + 1);
+      int offset = seed * 7;
+      inputs.reset(IntBuffer.wrap(data), offset);
+      double[] shifted = inputs.shifted(0, positions);
+      for (int t = 0; t < positions; t++) {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int k = 0; k < inputLen; k++) {
+          min = Math.min(min, data[offset + t + k]);
+          max = Math.max(max, data[offset + t + k]);
+        }
+        assertEquals(max - min, inputs.scale(t), 0d, "scale at " + t);
+        for (int k = 0; k < inputLen; k++) {
+          assertEquals(data[offset + t + k] - min, shifted[t * inputLen + k], 0d);
+        }
+        assertEquals(data[offset + t + inputLen - 1], inputs.price(t));
+      }
+    }
+  }
+
+  @Test
+  void resetInvalidatesPreparedPositions() {
+    Inputs inputs = new Inputs(5, 3);
+    inputs.reset(IntBuffer.wrap(new int[]{1, 2, 3, 4, 5, 6, 7}), 0);
+    assertEquals(1d, inputs.shifted(0, 1)[1], 0d);
+    inputs.reset(IntBuffer.wrap(new int[]{10, 30, 20, 40, 50, 60, 70}), 0);
+    assertEquals(20d, inputs.shifted(0, 1)[1], 0d);
+    assertEquals(40d, inputs.scale(0), 0d);
+    assertEquals(0.5f, inputs.normalizedFloats(0, 1)[1]);
+  }
+}
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.machinepublishers.neuraltrader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LockedFileTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void readingAMissingFileDoesNotCreateIt() {
+    File file = dir.resolve("n1").toFile();
+    assertThrows(RuntimeException.class, () -> LockedFile.read(file, buffer -> buffer));
+    assertFalse(file.exists());
+  }
+
+  @Test
+  void readsWholeFile() throws IOException {
+    File file = dir.resolve("n1").toFile();
+    Files.writeString(file.toPath(), "weights");
+    assertEquals("weights",
+        LockedFile.read(file, buffer -> StandardCharsets.UTF_8.decode(buffer).toString()));
+    Files.writeString(file.toPath(), "");
+    assertThrows(RuntimeException.class, () -> LockedFile.read(file, buffer -> buffer));
+  }
+}
\ No newline at end of file
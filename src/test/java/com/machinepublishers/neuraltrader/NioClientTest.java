@@ -0,0 +1,96 @@
+package com.machinepublishers.neuraltrader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.machinepublishers.neuraltrader.Prices.Marker;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.rmi.RemoteException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class NioClientTest {
+
+  private ServerSocketChannel server;
+  private NioClient client;
+
+  @BeforeEach
+  void listen() throws IOException {
+    server = ServerSocketChannel.open()
+        .bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    client = new NioClient((InetSocketAddress) server.getLocalAddress(), "key", 200);
+  }
+
+  @AfterEach
+  void close() throws IOException {
+    server.close();
+  }
+
+  private SocketChannel accept() throws IOException, InterruptedException {
+    server.configureBlocking(false);
+    for (int i = 0; i < 100; i++) {
+      SocketChannel channel = server.accept();
+      if (channel != null) {
+        channel.configureBlocking(true);
+        return channel;
+      }
+      Thread.sleep(50);
+    }
+    return null;
+  }
+
+  private static boolean closedByPeer(SocketChannel channel)
+      throws IOException, InterruptedException {
+    channel.configureBlocking(false);
+    for (int i = 0; i < 100; i++) {
+      if (channel.read(ByteBuffer.allocate(1)) < 0) {
+        return true;
+      }
+      Thread.sleep(50);
+    }
+    return false;
+  }
+
+  @Test
+  void timedOutCallsAreForgotten() {
+    assertThrows(RemoteException.class, () -> client.randPriceMarker("key", false, 0));
+    CompletableFuture<Marker> future = client.randPriceMarkerAsync(false, 0);
+    ExecutionException e = assertThrows(ExecutionException.class, future::get);
+    assertInstanceOf(TimeoutException.class, e.getCause());
+    assertEquals(0, client.pending());
+  }
+
+  @Test
+  void lateResponseStartsAFreshConnection() throws Exception {
+    CompletableFuture<Marker> future = client.randPriceMarkerAsync(false, 0);
+    SocketChannel first = accept();
+    assertNotNull(first);
+    assertEquals(NioProtocol.HELLO, NioProtocol.read(first).get());
+    ByteBuffer request = NioProtocol.read(first);
+    assertEquals(NioProtocol.MARKER, request.get());
+    int reqId = request.getInt();
+    assertThrows(ExecutionException.class, future::get);
+    Marker marker = new Marker(false, 1, 2);
+    ByteBuffer response = NioProtocol.frame(NioProtocol.OK, reqId, NioProtocol.markerLen(marker));
+    NioProtocol.putMarker(response, marker);
+    NioProtocol.write(first, response);
+    assertTrue(closedByPeer(first), "client kept the connection after a late response");
+    client.randPriceMarkerAsync(false, 0);
+    SocketChannel second = accept();
+    assertNotNull(second);
+    first.close();
+    second.close();
+  }
+}
\ No newline at end of file
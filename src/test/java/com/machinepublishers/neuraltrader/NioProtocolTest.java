@@ -0,0 +1,144 @@
+package com.machinepublishers.neuraltrader;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.machinepublishers.neuraltrader.Prices.Marker;
+import com.machinepublishers.neuraltrader.WeightFile.Contents;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class NioProtocolTest {
+
+  private SocketChannel out;
+  private SocketChannel in;
+
+  private static float[] weights(long seed, int length) {
+    SplittableRandom rand = new SplittableRandom(seed);
+    float[] weights = new float[length];
+    for (int i = 0; i < length; i++) {
+      weights[i] = (float) rand.nextGaussian();
+    }
+    return weights;
+  }
+
+  private static Contents contents(float[] weights) {
+    return new Contents(3, 4, 5, 17L, weights, false);
+  }
+
+  private static ByteBuffer encode(Contents contents, float[] base) {
+    return NioProtocol.putWeights(ByteBuffer.allocate(0), contents, base).flip();
+  }
+
+  @BeforeEach
+  void connect() throws IOException {
+    try (ServerSocketChannel server = ServerSocketChannel.open()
+        .bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+      out = SocketChannel.open(server.getLocalAddress());
+      in = server.accept();
+    }
+  }
+
+  @AfterEach
+  void close() throws IOException {
+    out.close();
+    in.close();
+  }
+
+  @Test
+  void framesRoundTrip() throws IOException {
+    for (int payload : new int[]{0, 1, 9, 1 << 16}) {
+      ByteBuffer frame = NioProtocol.frame(NioProtocol.MARKERS, payload + 7, payload);
+      for (int i = 0; i < payload; i++) {
+        frame.put((byte) i);
+      }
+      NioProtocol.write(out, frame);
+      ByteBuffer read = NioProtocol.read(in);
+      assertEquals(1 + Integer.BYTES + payload, read.remaining());
+      assertEquals(NioProtocol.MARKERS, read.get());
+      assertEquals(payload + 7, read.getInt());
+      for (int i = 0; i < payload; i++) {
+        assertEquals((byte) i, read.get());
+      }
+    }
+    Marker named = new Marker(true, 3, 1_000_000, "AAPL-\u00e9.csv");
+    Marker unnamed = new Marker(false, 0, 5);
+    ByteBuffer frame = NioProtocol.frame(NioProtocol.OK, 1,
+        NioProtocol.markerLen(named) + NioProtocol.markerLen(unnamed));
+    NioProtocol.putMarker(frame, named);
+    NioProtocol.putMarker(frame, unnamed);
+    assertFalse(frame.hasRemaining());
+    NioProtocol.write(out, frame);
+    ByteBuffer read = NioProtocol.read(in);
+    read.position(1 + Integer.BYTES);
+    assertEquals(named, NioProtocol.getMarker(read));
+    assertEquals(unnamed, NioProtocol.getMarker(read));
+    assertFalse(read.hasRemaining());
+  }
+
+  @Test
+  void rejectsBadFrameLengths() throws IOException {
+    for (int size : new int[]{0, Integer.BYTES, (1 << 26) + 1, -1}) {
+      out.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, size));
+      assertThrows(IOException.class, () -> NioProtocol.read(in));
+    }
+  }
+
+  @Test
+  void sendsSmallChangesAsXorDelta() throws IOException {
+    float[] base = weights(1, 1_000);
+    float[] next = base.clone();
+    next[0] = -next[0];
+    next[500] = 0f;
+    next[999] = Float.intBitsToFloat(Float.floatToRawIntBits(next[999]) ^ 1);
+    ByteBuffer full = encode(contents(next), null);
+    ByteBuffer delta = encode(contents(next), base);
+    assertEquals(1 + 3 * Integer.BYTES + Long.BYTES + 2 * Integer.BYTES + 3 * 2 * Integer.BYTES,
+        delta.remaining());
+    Map<Integer, float[]> bases = new HashMap<>(Map.of(7, base.clone()));
+    Contents decoded = NioProtocol.getWeights(delta, 7, bases);
+    assertFalse(delta.hasRemaining());
+    assertEquals(17L, decoded.generation());
+    assertEquals(4, decoded.len());
+    assertArrayEquals(next, decoded.weights());
+    assertArrayEquals(next, bases.get(7));
+    assertArrayEquals(next, NioProtocol.getWeights(full, 7, new HashMap<>()).weights());
+  }
+
+  @Test
+  void sendsLargeChangesInFull() throws IOException {
+    float[] base = weights(1, 100);
+    float[] next = weights(2, 100);
+    ByteBuffer full = encode(contents(next), base);
+    assertEquals(encode(contents(next), null), full);
+    assertArrayEquals(next, NioProtocol.getWeights(full, 7, new HashMap<>()).weights());
+    ByteBuffer resized = encode(contents(weights(1, 101)), base);
+    assertEquals(encode(contents(weights(1, 101)), null), resized);
+  }
+
+  @Test
+  void detectsDeltaAgainstTheWrongBase() {
+    float[] base = weights(1, 1_000);
+    float[] next = base.clone();
+    next[3] = 1f;
+    ByteBuffer delta = encode(contents(next), base);
+    float[] stale = base.clone();
+    stale[4] = 2f;
+    assertThrows(IOException.class,
+        () -> NioProtocol.getWeights(delta.duplicate(), 7, new HashMap<>(Map.of(7, stale))));
+    assertThrows(IOException.class,
+        () -> NioProtocol.getWeights(delta.duplicate(), 7, new HashMap<>()));
+  }
+}
\ No newline at end of file
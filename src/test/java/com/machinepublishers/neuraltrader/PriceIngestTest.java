@@ -0,0 +1,132 @@
+package com.machinepublishers.neuraltrader;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PriceIngestTest {
+
+  @TempDir
+  Path dir;
+
+  private static int[] read(File file) throws IOException {
+    int[] rows = new int[(int) (file.length() / Integer.BYTES)];
+    try (DataInputStream in = new DataInputStream(Files.newInputStream(file.toPath()))) {
+      for (int i = 0; i < rows.length; i++) {
+        rows[i] = in.readInt();
+      }
+    }
+    return rows;
+  }
+
+  private File csv(int priceCol, String name, String contents) throws IOException {
+    Path path = dir.resolve("training").resolve(Integer.toString(priceCol)).resolve(name);
+    Files.createDirectories(path.getParent());
+    Files.writeString(path, contents, StandardCharsets.ISO_8859_1);
+    return path.toFile();
+  }
+
+  @Test
+  void parsesPriceColumnToCents() throws IOException {
+    File csv = csv(1, "a.csv", "time,price,volume\r\n"
+        + "1,12,5\r\n"
+        + "2,12.5,5\r\n"
+        + "3,12.34,5\r\n"
+        + "4,1.2375e1\r\n"
+        + "5,NaN,5\r\n"
+        + "6,12.01");
+    PriceIngest ingest = new PriceIngest(1, csv);
+    ingest.process();
+    File dist = PriceIngest.dist(csv);
+    assertEquals(dir.resolve("training-dist").resolve("a.csv").toFile(), dist);
+    assertArrayEquals(new int[]{1200, 1250, 1234, 1238, 1201}, read(dist));
+    assertEquals(csv.length(), ingest.consumed());
+  }
+
+  @Test
+  void rejectsMalformedRows() throws IOException {
+    assertThrows(IllegalStateException.class,
+        () -> new PriceIngest(2, csv(2, "a.csv", "h\n1,2\n")).process());
+    assertThrows(IllegalStateException.class,
+        () -> new PriceIngest(0, csv(0, "b.csv", "h\nabc\n")).process());
+    assertThrows(IllegalStateException.class,
+        () -> new PriceIngest(0, csv(0, "c.csv", "h\n100\n300\n")).process());
+    assertThrows(IllegalStateException.class,
+        () -> new PriceIngest(0, csv(0, "d.csv", "h\n0.001\n")).process());
+  }
+
+  @Test
+  void keepsExistingOutputAndIgnoresStaleTempFiles() throws IOException {
+    File csv = csv(0, "a.csv", "h\n1\n2\n");
+    File dist = PriceIngest.dist(csv);
+    Files.createDirectories(dist.getParentFile().toPath());
+    Files.writeString(dist.getParentFile().toPath().resolve(".a.csv.tmp"), "stale");
+    new PriceIngest(0, csv).process();
+    assertArrayEquals(new int[]{100, 200}, read(dist));
+    Files.writeString(csv.toPath(), "h\n3\n");
+    new PriceIngest(0, csv).process();
+    assertArrayEquals(new int[]{100, 200}, read(dist));
+  }
+
+  @Test
+  void concurrentIngestsOfTheSameFileAgree() throws IOException {
+    StringBuilder contents = new StringBuilder("h\n");
+    IntStream.range(0, 20_000).forEach(i -> contents.append(1_000 + i % 50).append('\n'));
+    File csv = csv(0, "a.csv", contents.toString());
+    List<PriceIngest> ingests = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      ingests.add(new PriceIngest(0, csv));
+    }
+    PriceIngest.processAll(ingests);
+    int[] rows = read(PriceIngest.dist(csv));
+    assertEquals(20_000, rows.length);
+    for (int i = 0; i < rows.length; i++) {
+      assertEquals(100 * (1_000 + i % 50), rows[i]);
+    }
+    String[] left = PriceIngest.dist(csv).getParentFile().list();
+    assertTrue(left != null && left.length == 1, String.join(",", left));
+  }
+
+  @Test
+  void tailingWaitsForTheRestOfAPartialLine() throws IOException {
+    File csv = csv(1, "a.csv", "time,price\n1,10.00\n2,10.");
+    PriceIngest ingest = new PriceIngest(1, csv, true);
+    ingest.process();
+    File dist = PriceIngest.dist(csv);
+    assertArrayEquals(new int[]{1000}, read(dist));
+    assertEquals("time,price\n1,10.00\n".length(), ingest.consumed());
+    assertEquals(0, ingest.tail());
+    Files.writeString(csv.toPath(), "50\n3,1", StandardOpenOption.APPEND);
+    assertEquals(1, ingest.tail());
+    assertArrayEquals(new int[]{1000, 1050}, read(dist));
+    Files.writeString(csv.toPath(), "0.75\n4,11\n", StandardOpenOption.APPEND);
+    assertEquals(2, ingest.tail());
+    assertArrayEquals(new int[]{1000, 1050, 1075, 1100}, read(dist));
+    assertEquals(csv.length(), ingest.consumed());
+  }
+
+  @Test
+  void tailingResumesFromOutputWrittenByAnotherIngest() throws IOException {
+    File csv = csv(0, "a.csv", "h\n1\n2\n");
+    new PriceIngest(0, csv, true).process();
+    Files.writeString(csv.toPath(), "2.5\n", StandardOpenOption.APPEND);
+    PriceIngest ingest = new PriceIngest(0, csv, true);
+    ingest.process();
+    assertEquals(1, ingest.tail());
+    assertArrayEquals(new int[]{100, 200, 250}, read(PriceIngest.dist(csv)));
+  }
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.machinepublishers.neuraltrader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.machinepublishers.neuraltrader.Prices.Marker;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class PricesTest {
+
+  @Test
+  void resolvesOnlyMarkersThatFitTheLocalSnapshot() {
+    Prices prices = new Prices(10, new int[][]{new int[20], new int[30]}, new int[][]{new int[15]});
+    assertNotNull(prices.resolve(new Marker(true, 0, 0)));
+    assertNotNull(prices.resolve(new Marker(true, 0, 8)));
+    assertNull(prices.resolve(new Marker(true, 0, 9)));
+    assertNotNull(prices.resolve(new Marker(true, 1, 18)));
+    assertNull(prices.resolve(new Marker(true, 2, 0)));
+    assertNull(prices.resolve(new Marker(true, -1, 0)));
+    assertNull(prices.resolve(new Marker(true, 0, -1)));
+    assertNotNull(prices.resolve(new Marker(false, 0, 3)));
+    assertNull(prices.resolve(new Marker(false, 0, 4)));
+    assertNull(prices.resolve(new Marker(false, 1, 0)));
+    Rng.bind(new SplittableRandom(3));
+    for (int i = 0; i < 1_000; i++) {
+      assertNotNull(prices.resolve(prices.rand(i % 2 == 0)));
+    }
+  }
+
+  @Test
+  void resolvesNamedMarkersByNameRatherThanIndex() {
+    Prices prices = new Prices(10, new int[][]{new int[20], new int[30]}, new int[][]{new int[15]});
+    assertEquals(new Marker(true, 1, 15, "dataset1"),
+        prices.resolve(new Marker(true, 0, 15, "dataset1")));
+    assertEquals(new Marker(true, 1, 15, "dataset1"),
+        prices.resolve(new Marker(true, 7, 15, "dataset1")));
+    assertNull(prices.resolve(new Marker(true, 0, 15, "dataset0")));
+    assertNull(prices.resolve(new Marker(true, 0, 0, "missing.csv")));
+    assertNull(prices.resolve(new Marker(false, 0, 0, "dataset1")));
+  }
+}
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.machinepublishers.neuraltrader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import org.junit.jupiter.api.Test;
+
+class RngTest {
+
+  private static long[] draw(RandomGenerator rand) {
+    long[] values = new long[8];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = rand.nextLong();
+    }
+    return values;
+  }
+
+  private static long[] drawOnThread(String name) throws InterruptedException {
+    long[][] values = new long[1][];
+    Thread thread = new Thread(() -> values[0] = draw(Rng.current()), name);
+    thread.start();
+    thread.join();
+    return values[0];
+  }
+
+  @Test
+  void sameNamedThreadsGetIndependentStreams() throws InterruptedException {
+    long[] first = drawOnThread("eval-0");
+    long[] second = drawOnThread("eval-0");
+    assertNotEquals(first[0], second[0]);
+    assertNotEquals(first[7], second[7]);
+  }
+
+  @Test
+  void keyedStreamsAreReproducible() {
+    assertEquals(draw(Rng.stream("n7"))[7], draw(Rng.stream("n7"))[7]);
+    assertNotEquals(draw(Rng.stream("n7"))[0], draw(Rng.stream("n8"))[0]);
+  }
+
+  @Test
+  void bindReplacesTheThreadStream() {
+    RandomGenerator bound = new SplittableRandom(11);
+    Rng.bind(bound);
+    long expected = new SplittableRandom(11).nextLong();
+    assertEquals(expected, Rng.current().nextLong());
+  }
+}
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.machinepublishers.neuraltrader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class RollingProfitTest {
+
+  private static void check(int history, int recent, int day, int ticks) {
+    SplittableRandom rand = new SplittableRandom(history);
+    RollingProfit rolling = new RollingProfit(history, recent, day);
+    int[] ring = new int[history];
+    long total = 0;
+    for (int x = 0; x < ticks; x++) {
+      int cur = x % history;
+      int profit = rand.nextInt(3) == 0 ? 0 : rand.nextInt(-50_000, 50_000);
+      ring[cur] = profit;
+      total += profit;
+      rolling.add(profit);
+      long all = 0;
+      for (int i = 0; i < history; i++) {
+        all += ring[i];
+      }
+      long last = 0;
+      for (int i = 0; i < recent; i++) {
+        last += ring[Math.floorMod(cur - i, history)];
+      }
+      long block = 0;
+      for (int i = 0, start = cur - (cur % day); i < day; i++) {
+        block += ring[Math.floorMod(start - i - 1, history)];
+      }
+      String at = history + "/" + recent + "/" + day + " tick " + x;
+      assertEquals(profit, rolling.last(), at);
+      assertEquals(total, rolling.total(), at);
+      assertEquals(all, rolling.history(), at);
+      assertEquals(last, rolling.recent(), at);
+      assertEquals(block, rolling.day(), at);
+    }
+  }
+
+  @Test
+  void matchesFullRescans() {
+    check(101, 17, 12, 5_000);
+    check(96, 96, 48, 1_000);
+    check(7, 1, 7, 100);
+    check(60, 60, 40, 2_000);
+    check(4383, 336, 48, 10_000);
+  }
+
+  @Test
+  void startsEmpty() {
+    RollingProfit rolling = new RollingProfit(10, 5, 2);
+    assertEquals(0, rolling.last());
+    assertEquals(0, rolling.total());
+    assertEquals(0, rolling.history());
+    assertEquals(0, rolling.recent());
+    assertEquals(0, rolling.day());
+  }
+
+  @Test
+  void rejectsWindowsLongerThanTheHistory() {
+    assertThrows(IllegalArgumentException.class, () -> new RollingProfit(10, 11, 2));
+    assertThrows(IllegalArgumentException.class, () -> new RollingProfit(10, 5, 11));
+  }
+}
\ No newline at end of file
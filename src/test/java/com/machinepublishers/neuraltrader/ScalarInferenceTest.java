@@ -0,0 +1,65 @@
+package com.machinepublishers.neuraltrader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.IntBuffer;
+import org.junit.jupiter.api.Test;
+
+class ScalarInferenceTest {
+
+  private static double[] reference(NeuralNet net, IntBuffer data, int offset) {
+    int len = net.len();
+    int inputLen = net.inputLen();
+    float[] weights = net.weights();
+    int max = Integer.MIN_VALUE;
+    int min = Integer.MAX_VALUE;
+    for (int i = offset; i < offset + inputLen; i++) {
+      max = Math.max(max, data.get(i));
+      min = Math.min(min, data.get(i));
+    }
+    double scale = max - min;
+    double[] prev = new double[len];
+    double[] next = new double[len];
+    for (int i = 0, row = 0; i < net.layers(); i++) {
+      int rows = i == net.layers() - 1 ? 2 : len;
+      int cols = i == 0 ? inputLen : len;
+      for (int j = 0; j < rows; j++, row += cols) {
+        double sum = 0d;
+        for (int k = 0; k < cols; k++) {
+          sum += i == 0
+              ? (double) weights[row + k] * (double) (data.get(k + offset) - min) / scale
+              : (double) weights[row + k] * prev[k];
+        }
+        next[j] = sum > 0d ? sum : 0d;
+      }
+      double[] tmp = prev;
+      prev = next;
+      next = tmp;
+    }
+    return prev;
+  }
+
+  @Test
+  void outputsMatchOriginalOrderOfOperationsExactly() {
+    Prices prices = Fixtures.prices();
+    Inputs inputs = Evaluator.newInputs();
+    for (int n = 0; n < 3; n++) {
+      NeuralNet net = Fixtures.net(n);
+      for (int m = 0; m < 5; m++) {
+        Prices.Marker marker = new Prices.Marker(true, m % Fixtures.DATASETS, 1_000 + 977 * m);
+        IntBuffer data = prices.getData(marker);
+        inputs.reset(data, marker.offset());
+        double[] batch = ScalarInference.processDecisions(net, inputs, 0, inputs.positions())
+            .clone();
+        for (int t = 0; t < inputs.positions(); t++) {
+          double[] expected = reference(net, data, marker.offset() + t);
+          double[] single = ScalarInference.processDecisions(net, inputs, t, 1);
+          assertEquals(expected[0], single[0]);
+          assertEquals(expected[1], single[1]);
+          assertEquals(expected[0], batch[t * net.len()]);
+          assertEquals(expected[1], batch[t * net.len() + 1]);
+        }
+      }
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.machinepublishers.neuraltrader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.machinepublishers.neuraltrader.Prices.Marker;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class SparseInferenceTest {
+
+  private static NeuralNet[] nets(double density) {
+    NeuralNet[] nets = new NeuralNet[3];
+    for (int i = 0; i < nets.length; i++) {
+      nets[i] = Fixtures.net(i, density);
+    }
+    return nets;
+  }
+
+  private static void check(SparseInference sparse) {
+    for (double density : new double[]{1d, 0.3, 0.05}) {
+      Rng.bind(new SplittableRandom(2));
+      assertEquals(1d, Fidelity.agreement(new ScalarInference(), sparse, nets(density),
+          Fixtures.prices(), 50), "density " + density);
+    }
+  }
+
+  @Test
+  void densePathMatchesScalar() {
+    check(new SparseInference(0d));
+  }
+
+  @Test
+  void sparsePathMatchesScalar() {
+    check(new SparseInference(Double.MAX_VALUE));
+  }
+
+  @Test
+  void singlePositionMatchesBatch() {
+    Rng.bind(new SplittableRandom(3));
+    Prices prices = Fixtures.prices();
+    Inputs inputs = Evaluator.newInputs();
+    Decision[] batch = new Decision[inputs.positions()];
+    SparseInference sparse = new SparseInference();
+    for (NeuralNet net : nets(0.3)) {
+      Marker marker = prices.rand(false);
+      inputs.reset(prices.getData(marker), marker.offset());
+      sparse.decide(net, inputs, 0, batch.length, batch);
+      for (int t = 0; t < batch.length; t++) {
+        assertEquals(batch[t], sparse.decide(net, inputs, t), "position " + t);
+      }
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.machinepublishers.neuraltrader;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.machinepublishers.neuraltrader.WeightFile.Contents;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WeightFileTest {
+
+  private static final File FILE = new File("n0");
+  private static final float[] WEIGHTS = {0f, -1f, 1f, .5f, -.0001f, Float.MIN_VALUE, .3333333f};
+
+  private static ByteBuffer encoded() {
+    return WeightFile.encode(3, 2, 4, -42L, WEIGHTS);
+  }
+
+  @Test
+  void binaryRoundTrip() {
+    ByteBuffer buffer = encoded();
+    assertTrue(WeightFile.isBinary(buffer));
+    Contents contents = WeightFile.decode(FILE, buffer);
+    assertEquals(3, contents.layers());
+    assertEquals(2, contents.len());
+    assertEquals(4, contents.inputLen());
+    assertEquals(-42L, contents.generation());
+    assertArrayEquals(WEIGHTS, contents.weights());
+    assertFalse(contents.legacy());
+  }
+
+  @Test
+  void everyCorruptedByteIsRejected() {
+    int length = encoded().limit();
+    for (int i = Integer.BYTES * 2; i < length; i++) {
+      ByteBuffer buffer = encoded();
+      buffer.put(i, (byte) (buffer.get(i) ^ 0x10));
+      assertThrows(IllegalStateException.class, () -> WeightFile.decode(FILE, buffer),
+          "byte " + i);
+    }
+  }
+
+  @Test
+  void truncatedAndUnknownVersionsAreRejected() {
+    ByteBuffer truncated = encoded();
+    truncated.limit(truncated.limit() - 1);
+    assertTrue(assertThrows(IllegalStateException.class,
+        () -> WeightFile.decode(FILE, truncated)).getMessage().startsWith("Truncated"));
+    ByteBuffer version = encoded();
+    version.putInt(Integer.BYTES, WeightFile.VERSION + 1);
+    assertTrue(assertThrows(IllegalStateException.class,
+        () -> WeightFile.decode(FILE, version)).getMessage().startsWith("Unsupported"));
+  }
+
+  @Test
+  void legacyTextRoundTrip() {
+    String text = new Contents(3, 2, 4, 7L, WEIGHTS, false).toText();
+    ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    assertFalse(WeightFile.isBinary(buffer));
+    Contents contents = WeightFile.decode(FILE, buffer);
+    assertTrue(contents.legacy());
+    assertEquals(7L, contents.generation());
+    assertArrayEquals(WEIGHTS, contents.weights());
+    assertEquals(WeightFile.encode(3, 2, 4, 7L, WEIGHTS), contents.toBinary());
+  }
+
+  @Test
+  void converterRewritesFilesThroughCheckpoints(@TempDir Path dir) throws IOException {
+    File file = dir.resolve("n3").toFile();
+    Files.writeString(file.toPath(), new Contents(3, 2, 4, 7L, WEIGHTS, false).toText());
+    WeightFile.main(new String[]{file.getPath()});
+    ByteBuffer binary = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+    assertTrue(WeightFile.isBinary(binary));
+    assertArrayEquals(WEIGHTS, WeightFile.decode(file, binary).weights());
+    WeightFile.main(new String[]{"--text", file.getPath()});
+    Contents text = WeightFile.decode(file, ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+    assertTrue(text.legacy());
+    assertArrayEquals(WEIGHTS, text.weights());
+    assertArrayEquals(new String[]{"n3"}, dir.toFile().list());
+  }
+}
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.machinepublishers.neuraltrader;
+
+import java.util.SplittableRandom;
+
+public class Fixtures {
+
+  public static final int LAYERS = 5;
+  public static final int LEN = 45;
+  public static final int DATASETS = 4;
+  public static final int TICKS = 100_000;
+  private static final long SEED = 0x5EEDL;
+
+  public static Prices prices() {
+    SplittableRandom rand = new SplittableRandom(SEED);
+    return new Prices(Evaluator.PRICE_HISTORY + (2 * Evaluator.WINDOW), walks(rand), walks(rand));
+  }
+
+  public static NeuralNet net(int id) {
+    return NeuralNet.createUnsaved(SEED, id, LAYERS, LEN, Evaluator.PRICE_HISTORY);
+  }
+
+  public static NeuralNet net(int id, double density) {
+    return net(id).prune((float) (1d - density));
+  }
+
+  private static int[][] walks(SplittableRandom rand) {
+    int[][] data = new int[DATASETS][TICKS];
+    for (int i = 0; i < data.length; i++) {
+      int price = 10_000;
+      for (int j = 0; j < data[i].length; j++) {
+        price = Math.max(100, price + rand.nextInt(-25, 26));
+        data[i][j] = price;
+      }
+    }
+    return data;
+  }
+}
\ No newline at end of file
@@ -0,0 +1,68 @@
+package com.machinepublishers.neuraltrader;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+public class VectorInference implements Inference {
+
+  private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+  private static final ThreadLocal<float[][]> batchBuffers = ThreadLocal.withInitial(
+      () -> new float[][]{new float[0], new float[0]});
+
+  @Override
+  public Decision decide(NeuralNet net, Inputs inputs, int position) {
+    float[] buffer = processDecisions(net, inputs, position, 1);
+    return Inference.decision(buffer[0], buffer[1]);
+  }
+
+  @Override
+  public void decide(NeuralNet net, Inputs inputs, int from, int count, Decision[] decisions) {
+    float[] buffer = processDecisions(net, inputs, from, count);
+    for (int t = 0, len = net.len(); t < count; t++) {
+      decisions[t] = Inference.decision(buffer[t * len], buffer[t * len + 1]);
+    }
+  }
+
+  private static float[] processDecisions(NeuralNet net, Inputs inputs, int from, int count) {
+    int layers = net.layers();
+    int len = net.len();
+    int inputLen = net.inputLen();
+    float[] weights = net.weights();
+    float[] input = inputs.normalizedFloats(from, count);
+    float[][] buffers = batchBuffers.get();
+    if (buffers[0].length < count * len) {
+      buffers[0] = new float[count * len];
+      buffers[1] = new float[count * len];
+    }
+    float[] prev = buffers[0];
+    float[] next = buffers[1];
+    for (int i = 0, row = 0; i < layers; i++) {
+      int rows = i == layers - 1 ? 2 : len;
+      int cols = i == 0 ? inputLen : len;
+      float[] in = i == 0 ? input : prev;
+      int offset = i == 0 ? from * inputLen : 0;
+      int bound = SPECIES.loopBound(cols);
+      for (int j = 0; j < rows; j++, row += cols) {
+        for (int t = 0; t < count; t++) {
+          int start = offset + t * cols;
+          FloatVector acc = FloatVector.zero(SPECIES);
+          int k = 0;
+          for (; k < bound; k += SPECIES.length()) {
+            acc = FloatVector.fromArray(SPECIES, weights, row + k)
+                .fma(FloatVector.fromArray(SPECIES, in, start + k), acc);
+          }
+          float sum = acc.reduceLanes(VectorOperators.ADD);
+          for (; k < cols; k++) {
+            sum = Math.fma(weights[row + k], in[start + k], sum);
+          }
+          next[t * len + j] = sum > 0f ? sum : 0f;
+        }
+      }
+      float[] tmp = prev;
+      prev = next;
+      next = tmp;
+    }
+    return prev;
+  }
+}
\ No newline at end of file